@@ -36,9 +36,10 @@ echo -e "${CYAN}🔄 Resetting application data...${NC}"
 
 # Remove serialized data files
 echo -e "${CYAN}  → Removing data files...${NC}"
-rm -f bank_data.ser
-rm -f src/main/java/bank_data.ser
+rm -f bank_data.ser bank_data.journal bank_data.ser.legacy
+rm -f src/main/java/bank_data.ser src/main/java/bank_data.journal src/main/java/bank_data.ser.legacy
 rm -f target/classes/bank_data.ser
+rm -rf bank_history src/main/java/bank_history
 
 # Remove compiled classes
 echo -e "${CYAN}  → Cleaning compiled classes...${NC}"
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * AccountStore - Accounts of a memory-mapped snapshot, decoded on first use.
+ *
+ * Loading a snapshot only indexes the account records; an account is decoded
+ * the first time Bank asks for it and its transaction history the first time
+ * the history is read. Until then both are views into the mapped file, so the
+ * OS pages them in only when they are actually used. Accounts never touched
+ * are copied into the next snapshot as they are.
+ */
+public class AccountStore {
+    private final SnapshotCodec.Reader reader;
+    private final Map<String, ByteBuffer> records = new ConcurrentHashMap<>();
+    private volatile Consumer<BankAccount> loadListener;
+
+    AccountStore(SnapshotCodec.Reader reader) {
+        this.reader = reader;
+    }
+
+    void addRecord(String accountNumber, ByteBuffer record) {
+        records.put(accountNumber, record);
+    }
+
+    public boolean contains(String accountNumber) {
+        return records.containsKey(accountNumber);
+    }
+
+    public Set<String> getAccountNumbers() {
+        return records.keySet();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    // Decode a stored account; null if the snapshot has no such account
+    public BankAccount load(String accountNumber) {
+        ByteBuffer record = records.get(accountNumber);
+        if (record == null) {
+            return null;
+        }
+        try {
+            BankAccount account = BankAccount.readSnapshot(reader.readerFor(record));
+            Consumer<BankAccount> listener = loadListener;
+            if (listener != null) {
+                listener.accept(account);
+            }
+            return account;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt record for account " + accountNumber, e);
+        }
+    }
+
+    // Called with every account as it is decoded (persistence tracks what is on disk)
+    public void setLoadListener(Consumer<BankAccount> listener) {
+        this.loadListener = listener;
+    }
+
+    // Records can be copied verbatim only if their enum indexes mean the same in this build
+    public boolean canCopyRecords() {
+        return reader.hasCurrentEnumTables();
+    }
+
+    ByteBuffer getRecord(String accountNumber) {
+        ByteBuffer record = records.get(accountNumber);
+        return record == null ? null : record.duplicate();
+    }
+
+    // History of a stored account, decoded when first needed
+    static final class StoredHistory {
+        private final SnapshotCodec.Reader reader;
+        private final ByteBuffer block;
+        private final int count;
+
+        StoredHistory(SnapshotCodec.Reader reader, ByteBuffer block, int count) {
+            this.reader = reader;
+            this.block = block;
+            this.count = count;
+        }
+
+        int size() {
+            return count;
+        }
+
+        ByteBuffer getBlock() {
+            return block.duplicate();
+        }
+
+        TransactionLedger load() {
+            try {
+                return TransactionLedger.readSnapshot(reader.readerFor(block), count);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Corrupt transaction history", e);
+            }
+        }
+    }
+}
@@ -10,23 +10,34 @@ public class Bank implements Serializable {
     private Map<String, Customer> customers;
     private Map<String, Staff> staffMembers; // Stores username -> Staff
     private List<Message> supportInbox; // Messages from customers
-    private int accountCounter;
-    private int customerCounter;
+    private int accountCounter; // Last number issued; only used by Java serialization (legacy data files)
+    private int customerCounter; // As accountCounter
+    private transient IdAllocator accountIds;
+    private transient IdAllocator customerIds;
+    private transient IdAllocator depositIds; // FD and RD numbers
     private BankAccount treasuryAccount; // Central Treasury
     private double rbiLoanBalance; // Loan taken from RBI
     private double investedAmount; // Amount invested in market
+    private transient volatile AccountStore accountStore; // Accounts not yet decoded from the snapshot
 
     public Bank() {
         this.accounts = new ConcurrentHashMap<>();
         this.customers = new ConcurrentHashMap<>();
         this.staffMembers = new ConcurrentHashMap<>();
         this.supportInbox = new ArrayList<>();
-        this.accountCounter = 1000;
-        this.customerCounter = 1000;
+        this.accountIds = new IdAllocator(1001);
+        this.customerIds = new IdAllocator(1001);
+        this.depositIds = newDepositIds();
         this.treasuryAccount = new BankAccount("TREASURY_001", "BANK", "Bank Treasury", "N/A", 10000000.0,
                 AccountType.TREASURY);
     }
 
+    // FD and RD numbers used to be the creation time in milliseconds; counting up from the
+    // clock keeps every new number above those
+    private static IdAllocator newDepositIds() {
+        return new IdAllocator(System.currentTimeMillis());
+    }
+
     public BankAccount getTreasuryAccount() {
         return treasuryAccount;
     }
@@ -37,10 +48,11 @@ public class Bank implements Serializable {
             String state, String pincode, String panNumber, String aadharNumber,
             double initialDeposit, AccountType accountType) {
         // Create new customer
-        String customerId = "CUS" + (++customerCounter);
+        String customerId = "CUS" + customerIds.next();
         Customer newCustomer = new Customer(customerId, accountHolderName, mobileNumber,
                 email, dateOfBirth, address, city, state, pincode, panNumber, aadharNumber);
         customers.put(customerId, newCustomer);
+        ChangeTracker.structureChanged();
 
         // Create account for this customer
         return createAccountForExistingCustomer(customerId, initialDeposit, accountType);
@@ -53,11 +65,12 @@ public class Bank implements Serializable {
             BusinessType businessType, String companyName, String gstNumber, String cinNumber,
             double initialDeposit, AccountType accountType) {
         // Create new corporate customer
-        String customerId = "CUS" + (++customerCounter);
+        String customerId = "CUS" + customerIds.next();
         Customer newCustomer = new Customer(customerId, accountHolderName, mobileNumber,
                 email, dateOfBirth, address, city, state, pincode, panNumber, aadharNumber,
                 businessType, companyName, gstNumber, cinNumber);
         customers.put(customerId, newCustomer);
+        ChangeTracker.structureChanged();
 
         // Create account for this customer
         return createAccountForExistingCustomer(customerId, initialDeposit, accountType);
@@ -96,18 +109,25 @@ public class Bank implements Serializable {
             }
         }
 
-        String accountNumber = "ACC" + (++accountCounter);
+        String accountNumber = "ACC" + accountIds.next();
         BankAccount newAccount = new BankAccount(accountNumber, customerId, customer.getCustomerName(),
                 customer.getMobileNumber(), initialDeposit, accountType);
         accounts.put(accountNumber, newAccount);
         customer.addAccount(accountNumber);
+        ChangeTracker.structureChanged();
 
         System.out.println("\n✓ Account created successfully! Number: " + accountNumber);
         return accountNumber;
     }
 
     public BankAccount getAccount(String accountNumber) {
-        return accounts.get(accountNumber);
+        BankAccount account = accounts.get(accountNumber);
+        AccountStore store = accountStore;
+        if (account == null && store != null && accountNumber != null) {
+            // First use of an account still held in the mapped snapshot
+            account = accounts.computeIfAbsent(accountNumber, store::load);
+        }
+        return account;
     }
 
     public Customer getCustomer(String customerId) {
@@ -129,9 +149,44 @@ public class Bank implements Serializable {
     }
 
     public java.util.ArrayList<BankAccount> getAllAccounts() {
+        return new java.util.ArrayList<>(allAccounts().values());
+    }
+
+    // Every account number in order, without decoding the accounts still held in the snapshot
+    public java.util.ArrayList<String> getAccountNumbers() {
+        java.util.TreeSet<String> numbers = new java.util.TreeSet<>(accounts.keySet());
+        AccountStore store = accountStore;
+        if (store != null) {
+            numbers.addAll(store.getAccountNumbers());
+        }
+        return new java.util.ArrayList<>(numbers);
+    }
+
+    // Accounts already in memory - persistence only needs these, the rest are unchanged on disk
+    public java.util.ArrayList<BankAccount> getLoadedAccounts() {
         return new java.util.ArrayList<>(accounts.values());
     }
 
+    // Told about every account decoded from the snapshot after load
+    public void setAccountLoadListener(java.util.function.Consumer<BankAccount> listener) {
+        AccountStore store = accountStore;
+        if (store != null) {
+            store.setLoadListener(listener);
+        }
+    }
+
+    // Decode every stored account - needed by anything that walks all accounts
+    private Map<String, BankAccount> allAccounts() {
+        AccountStore store = accountStore;
+        if (store != null) {
+            for (String accountNumber : store.getAccountNumbers()) {
+                getAccount(accountNumber);
+            }
+            accountStore = null;
+        }
+        return accounts;
+    }
+
     public boolean wireTransfer(String fromAccNum, String toAccNum, double amount, String remark) {
         BankAccount fromAccount = getAccount(fromAccNum);
         BankAccount toAccount = getAccount(toAccNum);
@@ -150,8 +205,7 @@ public class Bank implements Serializable {
             return false;
         }
 
-        if (fromAccount.transferOut(amount, toAccNum, remark)) {
-            toAccount.transferIn(amount, fromAccNum, remark);
+        if (TransferEngine.transfer(fromAccount, toAccount, amount, remark)) {
             System.out.println("✓ Transfer successful!"); // UI feedback here for simplicity
             return true;
         } else {
@@ -165,31 +219,8 @@ public class Bank implements Serializable {
     }
 
     // Corporate Services
-    public void processPayroll(String fromAccNum, List<String> toAccounts, double amountPerEmp) {
-        BankAccount fromAccount = getAccount(fromAccNum);
-        if (fromAccount == null || fromAccount.getAccountType() != AccountType.CORPORATE) {
-            System.out.println("Invalid Corporate Account.");
-            return;
-        }
-
-        System.out.println("\nProcessing Payroll for " + toAccounts.size() + " employees...");
-
-        int successCount = 0;
-        for (String toAccNum : toAccounts) {
-            BankAccount toAccount = getAccount(toAccNum);
-            if (toAccount != null) {
-                if (fromAccount.transferOut(amountPerEmp, toAccNum, "Payroll")) {
-                    toAccount.transferIn(amountPerEmp, fromAccNum, "Payroll");
-                    successCount++;
-                } else {
-                    System.out.println("Failed to pay account: " + toAccNum + " (Insufficient funds)");
-                    break; // Stop if out of money
-                }
-            } else {
-                System.out.println("Skipping invalid account: " + toAccNum);
-            }
-        }
-        System.out.println("Payroll completed. Successful payments: " + successCount + "/" + toAccounts.size());
+    public PayrollEngine.Result processPayroll(String fromAccNum, List<String> toAccounts, double amountPerEmp) {
+        return PayrollEngine.run(this, getAccount(fromAccNum), toAccounts, amountPerEmp);
     }
 
     public boolean customerExistsByName(String name) {
@@ -366,7 +397,7 @@ public class Bank implements Serializable {
         String WHITE = "\u001B[37m";
         String GREEN = "\u001B[32m";
 
-        if (accounts.isEmpty()) {
+        if (allAccounts().isEmpty()) {
             System.out.println("\n  " + DIM + "No accounts in the system." + RESET);
             return;
         }
@@ -378,7 +409,7 @@ public class Bank implements Serializable {
         int count = 0;
         double totalBalance = 0.0;
 
-        for (BankAccount account : accounts.values()) {
+        for (BankAccount account : allAccounts().values()) {
             count++;
             totalBalance += account.getBalance();
 
@@ -390,13 +421,13 @@ public class Bank implements Serializable {
             System.out.println(DIM + "  │ " + RESET + DIM + "Type: " + account.getAccountType().getDisplayName() +
                     " | Balance: " + RESET + BRIGHT_GREEN + "₹" + String.format("%,.2f", account.getBalance()) + RESET);
 
-            if (count < accounts.size()) {
+            if (count < allAccounts().size()) {
                 System.out.println(DIM + "  ├─────────────────────────────────────────────────────────────┤" + RESET);
             }
         }
 
         System.out.println(DIM + "  ├─────────────────────────────────────────────────────────────┤" + RESET);
-        System.out.println(DIM + "  │ " + RESET + "Total Accounts:  " + BOLD + accounts.size() + RESET);
+        System.out.println(DIM + "  │ " + RESET + "Total Accounts:  " + BOLD + allAccounts().size() + RESET);
         System.out.println(DIM + "  │ " + RESET + "Total Deposits:  " + BRIGHT_GREEN + BOLD + "₹ "
                 + String.format("%,.2f", totalBalance) + RESET);
         System.out.println(DIM + "  └─────────────────────────────────────────────────────────────┘" + RESET);
@@ -419,7 +450,7 @@ public class Bank implements Serializable {
         double totalFees = 0.0;
         double totalInterest = 0.0;
 
-        for (BankAccount account : accounts.values()) {
+        for (BankAccount account : allAccounts().values()) {
             totalFees += account.getCumulativeFees();
             totalInterest += account.getCumulativeInterest();
         }
@@ -514,6 +545,7 @@ public class Bank implements Serializable {
         if (amount <= 0)
             return;
         rbiLoanBalance += amount;
+        ChangeTracker.structureChanged();
         treasuryAccount.deposit(amount);
         treasuryAccount.addTransaction("Loan Disbursed from RBI | Amount: ₹" + amount);
         System.out.println("  ✓ Borrowed ₹" + String.format("%,.2f", amount) + " from RBI @ 2%");
@@ -532,6 +564,7 @@ public class Bank implements Serializable {
         }
         if (treasuryAccount.transferOut(amount, "RBI_CENTRAL_BANK", "Loan Repayment")) {
             rbiLoanBalance -= amount;
+            ChangeTracker.structureChanged();
             System.out.println("  ✓ Repaid ₹" + String.format("%,.2f", amount) + " to RBI");
         }
     }
@@ -551,7 +584,7 @@ public class Bank implements Serializable {
 
     public double getTotalCustomerDeposits() {
         double total = 0;
-        for (BankAccount acc : accounts.values()) {
+        for (BankAccount acc : allAccounts().values()) {
             total += acc.getBalance();
         }
         return total;
@@ -569,6 +602,7 @@ public class Bank implements Serializable {
         }
 
         investedAmount += amount;
+        ChangeTracker.structureChanged();
         System.out.println("  ✓ Invested ₹" + String.format("%,.2f", amount) + " into Market (Avg 18% Returns)");
     }
 
@@ -595,7 +629,7 @@ public class Bank implements Serializable {
 
         System.out.println("=== Customer's Accounts ===");
         for (String accNum : customer.getAccountNumbers()) {
-            BankAccount account = accounts.get(accNum);
+            BankAccount account = getAccount(accNum);
             if (account != null) {
                 System.out
                         .println("Account: " + accNum + " | Balance: ₹" + String.format("%.2f", account.getBalance()));
@@ -605,12 +639,12 @@ public class Bank implements Serializable {
     }
 
     public void applyInterestToAll() {
-        if (accounts.isEmpty()) {
+        if (allAccounts().isEmpty()) {
             System.out.println("No accounts.");
             return;
         }
         int count = 0;
-        for (BankAccount account : accounts.values()) {
+        for (BankAccount account : allAccounts().values()) {
             if (account.isActive()) {
                 account.applyInterest(treasuryAccount);
                 count++;
@@ -620,12 +654,12 @@ public class Bank implements Serializable {
     }
 
     public void applyMaintenanceToAll() {
-        if (accounts.isEmpty()) {
+        if (allAccounts().isEmpty()) {
             System.out.println("No accounts.");
             return;
         }
         int count = 0;
-        for (BankAccount account : accounts.values()) {
+        for (BankAccount account : allAccounts().values()) {
             if (account.isActive()) {
                 if (account.applyMaintenanceCharge(treasuryAccount)) {
                     count++;
@@ -729,8 +763,9 @@ public class Bank implements Serializable {
         }
     }
 
-    public void addSupportMessage(Message message) {
+    public synchronized void addSupportMessage(Message message) {
         supportInbox.add(message);
+        ChangeTracker.structureChanged();
     }
 
     public List<Message> getSupportInbox() {
@@ -740,6 +775,7 @@ public class Bank implements Serializable {
     // Staff Management
     public void addStaff(Staff staff) {
         staffMembers.put(staff.getUsername(), staff);
+        ChangeTracker.structureChanged();
     }
 
     public Staff findStaff(String username) {
@@ -788,9 +824,18 @@ public class Bank implements Serializable {
         this.accounts.put(account.getAccountNumber(), account);
     }
 
+    // Counters are the last numbers issued; only called while restoring, before IDs are drawn
     public void setCounters(int customerCount, int accountCount) {
-        this.customerCounter = customerCount;
-        this.accountCounter = accountCount;
+        this.customerIds = new IdAllocator(customerCount + 1L);
+        this.accountIds = new IdAllocator(accountCount + 1L);
+    }
+
+    public String nextFixedDepositNumber() {
+        return "FD" + depositIds.next();
+    }
+
+    public String nextRecurringDepositNumber() {
+        return "RD" + depositIds.next();
     }
 
     public void setLedgerData(double rbiLoan, double invested) {
@@ -803,11 +848,11 @@ public class Bank implements Serializable {
     }
 
     public int getCustomerCounter() {
-        return customerCounter;
+        return (int) (customerIds.nextUnissued() - 1);
     }
 
     public int getAccountCounter() {
-        return accountCounter;
+        return (int) (accountIds.nextUnissued() - 1);
     }
 
     public double getRbiLoanBalance() {
@@ -818,9 +863,11 @@ public class Bank implements Serializable {
         return investedAmount;
     }
 
-    // Custom deserialization to handle backward compatibility
+    // Legacy data files (Java serialization) are only read, then migrated to the compact snapshot
     private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
         in.defaultReadObject();
+        setCounters(customerCounter, accountCounter);
+        depositIds = newDepositIds();
         if (staffMembers == null) {
             staffMembers = new ConcurrentHashMap<>();
         }
@@ -832,4 +879,90 @@ public class Bank implements Serializable {
                     AccountType.TREASURY);
         }
     }
+
+    // Snapshot decoding - fields are filled in by readSnapshot, without creating a new treasury
+    private Bank(boolean decoding) {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec); map keys are rebuilt from the entries
+    synchronized void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeDouble(rbiLoanBalance);
+        out.writeDouble(investedAmount);
+        treasuryAccount.writeSnapshot(out);
+        out.writeVarInt(customers.size());
+        for (Customer customer : customers.values()) {
+            customer.writeSnapshot(out);
+        }
+        out.writeVarInt(staffMembers.size());
+        for (Staff staff : staffMembers.values()) {
+            staff.writeSnapshot(out);
+        }
+        out.writeMessages(supportInbox);
+
+        AccountStore store = accountStore;
+        if (store != null && !store.canCopyRecords()) {
+            allAccounts();
+            store = null;
+        }
+        java.util.List<BankAccount> loaded = new ArrayList<>(accounts.values());
+        java.util.List<String> stored = new ArrayList<>();
+        if (store != null) {
+            java.util.Set<String> loadedNumbers = new java.util.HashSet<>();
+            for (BankAccount account : loaded) {
+                loadedNumbers.add(account.getAccountNumber());
+            }
+            for (String accountNumber : store.getAccountNumbers()) {
+                if (!loadedNumbers.contains(accountNumber)) {
+                    stored.add(accountNumber);
+                }
+            }
+        }
+        out.writeVarInt(loaded.size() + stored.size());
+        for (String accountNumber : stored) {
+            // Never decoded, so unchanged since the last snapshot
+            out.writeRawRecord(store.getRecord(accountNumber));
+        }
+        for (BankAccount account : loaded) {
+            out.writeRecord(account::writeSnapshot);
+        }
+        // ID marks last: every number in the records above was issued before they are read
+        out.writeVarLong(accountIds.nextUnissued());
+        out.writeVarLong(customerIds.nextUnissued());
+        out.writeVarLong(depositIds.nextUnissued());
+    }
+
+    static Bank readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        Bank bank = new Bank(true);
+        bank.rbiLoanBalance = in.readDouble();
+        bank.investedAmount = in.readDouble();
+        bank.treasuryAccount = BankAccount.readSnapshot(in);
+        int customerCount = in.readCount();
+        bank.customers = new ConcurrentHashMap<>(Math.max(16, customerCount * 2));
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = Customer.readSnapshot(in);
+            bank.customers.put(customer.getCustomerId(), customer);
+        }
+
+        int staffCount = in.readCount();
+        bank.staffMembers = new ConcurrentHashMap<>();
+        for (int i = 0; i < staffCount; i++) {
+            Staff staff = Staff.readSnapshot(in);
+            bank.staffMembers.put(staff.getUsername(), staff);
+        }
+        bank.supportInbox = in.readMessages();
+
+        // Only index the account records; each is decoded on first getAccount()
+        int accountCount = in.readCount();
+        bank.accounts = new ConcurrentHashMap<>(Math.max(16, accountCount * 2));
+        AccountStore store = new AccountStore(in);
+        for (int i = 0; i < accountCount; i++) {
+            java.nio.ByteBuffer record = in.readRecordBody();
+            store.addRecord(in.readerFor(record).readString(), record);
+        }
+        bank.accountStore = store;
+        bank.accountIds = new IdAllocator(in.readVarLong());
+        bank.customerIds = new IdAllocator(in.readVarLong());
+        bank.depositIds = new IdAllocator(in.readVarLong());
+        return bank;
+    }
 }
@@ -1,6 +1,10 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
-import java.util.Date;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
 
 public class BankAccount implements java.io.Serializable {
     private static final long serialVersionUID = 1L;
@@ -8,25 +12,54 @@ public class BankAccount implements java.io.Serializable {
     private String customerId;
     private String accountHolderName;
     private String mobileNumber;
-    private double balance;
-    private ArrayList<String> transactionHistory;
-    private SimpleDateFormat dateFormat;
-    private boolean isActive;
+    private double balance; // Only used by Java serialization (legacy data files); see balancePaise
+    private ArrayList<String> transactionHistory; // Only used by Java serialization (legacy data files)
+    private transient TransactionLedger ledger;
+    private transient AccountStore.StoredHistory storedHistory; // Not yet decoded from the snapshot
+    private transient ArrayList<HistoryArchive.Segment> archivedHistory = new ArrayList<>(); // Entries before the ledger's
+    private transient HistoryTotals historyTotals; // Null until first needed for data saved without totals
+    private volatile boolean isActive; // Read without the account lock (sessions, statement runs)
     private AccountType accountType;
     private static final double ANNUAL_INTEREST_RATE = 4.5;
-    private static final double GST_RATE = 0.18;
+    private static final long GST_PERCENT = 18;
+    private static final int PASSBOOK_PAGE_SIZE = 20;
+
+    // Where deposit, withdrawal and transfer refusals go unless the caller (a TellerServer
+    // session) takes them itself
+    static final Consumer<String> CONSOLE_REFUSALS = reason -> System.out.println("\u001B[31m❌ " + reason + "\u001B[0m");
 
     // Bank Branch Details
     private static final String BRANCH_NAME = "Mumbai Main Branch";
     private static final String IFSC_CODE = "BOFU0001234";
     private static final String SWIFT_CODE = "BOFUINBB";
 
-    // Revenue Tracking
+    // Revenue Tracking (only used by Java serialization, like balance)
     private double cumulativeFees;
     private double cumulativeInterest;
 
+    // Balance and revenue counters in paise. They change only by compare-and-set, so they
+    // can be read without the account lock, and a debit's overdraft check and deduction
+    // are one atomic step
+    private transient volatile long balancePaise;
+    private transient volatile long feesPaise;
+    private transient volatile long interestPaise;
+    private static final VarHandle BALANCE;
+    private static final VarHandle FEES;
+    private static final VarHandle INTEREST;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(BankAccount.class, "balancePaise", long.class);
+            FEES = lookup.findVarHandle(BankAccount.class, "feesPaise", long.class);
+            INTEREST = lookup.findVarHandle(BankAccount.class, "interestPaise", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // Account Management
-    private boolean isFrozen;
+    private volatile boolean isFrozen;
     private int chequeBookRequests;
     private ArrayList<FixedDeposit> fixedDeposits;
     private ArrayList<RecurringDeposit> recurringDeposits;
@@ -41,12 +74,10 @@ public class BankAccount implements java.io.Serializable {
         this.accountHolderName = accountHolderName;
         this.mobileNumber = mobileNumber;
         this.accountType = accountType;
-        this.balance = initialDeposit;
-        this.transactionHistory = new ArrayList<>();
-        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        this.balancePaise = Money.toPaise(initialDeposit);
+        this.ledger = new TransactionLedger();
+        this.historyTotals = new HistoryTotals();
         this.isActive = true;
-        this.cumulativeFees = 0.0;
-        this.cumulativeInterest = 0.0;
         this.isFrozen = false;
         this.chequeBookRequests = 0;
         this.fixedDeposits = new ArrayList<>();
@@ -69,11 +100,11 @@ public class BankAccount implements java.io.Serializable {
     }
 
     public double getCumulativeFees() {
-        return cumulativeFees;
+        return Money.toRupees(feesPaise);
     }
 
     public double getCumulativeInterest() {
-        return cumulativeInterest;
+        return Money.toRupees(interestPaise);
     }
 
     public String getAccountNumber() {
@@ -93,7 +124,7 @@ public class BankAccount implements java.io.Serializable {
     }
 
     public double getBalance() {
-        return balance;
+        return Money.toRupees(balancePaise);
     }
 
     public boolean isActive() {
@@ -120,37 +151,67 @@ public class BankAccount implements java.io.Serializable {
         return SWIFT_CODE;
     }
 
-    public void upgradeAccountType(AccountType newType) {
+    public synchronized void upgradeAccountType(AccountType newType) {
         AccountType oldType = this.accountType;
         this.accountType = newType;
         addTransaction("Account type changed from " + oldType.getDisplayName() +
                 " to " + newType.getDisplayName());
     }
 
-    public void setAccountHolderName(String newName) {
+    public synchronized void setAccountHolderName(String newName) {
         String oldName = this.accountHolderName;
         this.accountHolderName = newName;
+        ChangeTracker.structureChanged(); // Not carried by the journal
         addTransaction("Account holder name changed from '" + oldName + "' to '" + newName + "'", null);
     }
 
-    public void setMobileNumber(String newMobile) {
+    public synchronized void setMobileNumber(String newMobile) {
         String oldMobile = this.mobileNumber;
         this.mobileNumber = newMobile;
+        ChangeTracker.structureChanged(); // Not carried by the journal
         addTransaction("Mobile number updated from " + oldMobile + " to " + newMobile, null);
     }
 
-    public void closeAccount() {
+    public synchronized void closeAccount() {
         this.isActive = false;
-        addTransaction("Account closed. Final balance: ₹" + balance, null);
+        addTransaction("Account closed. Final balance: ₹" + getBalance(), null);
+    }
+
+    // Adds paise to the balance (negative to deduct) and returns the new balance; a sum
+    // outside the long range throws instead of wrapping
+    private long credit(long paise) {
+        long current;
+        long updated;
+        do {
+            current = balancePaise;
+            updated = Math.addExact(current, paise);
+        } while (!BALANCE.compareAndSet(this, current, updated));
+        return updated;
+    }
+
+    // Deducts paise unless the balance would fall below -floor; false leaves it untouched
+    private boolean tryDebit(long paise, long floor) {
+        long current;
+        do {
+            current = balancePaise;
+            if (current - paise < -floor) {
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(this, current, current - paise));
+        return true;
+    }
+
+    private static long gstOn(long feePaise) {
+        return Money.percentOf(feePaise, GST_PERCENT);
     }
 
     private void applyJoiningFee() {
-        double joiningFee = accountType.getJoiningFee();
-        double gst = joiningFee * GST_RATE;
-        double total = joiningFee + gst;
+        long joiningFee = Money.toPaise(accountType.getJoiningFee());
+        long gst = gstOn(joiningFee);
+        long total = joiningFee + gst;
 
-        balance -= total;
-        cumulativeFees += total; // Track revenue
+        credit(-total);
+        FEES.getAndAdd(this, total); // Track revenue
 
         // Only log if fee is greater than 0
         if (joiningFee > 0) {
@@ -158,47 +219,52 @@ public class BankAccount implements java.io.Serializable {
         }
     }
 
-    public void deposit(double amount) {
+    public boolean deposit(double amount) {
+        return deposit(amount, CONSOLE_REFUSALS);
+    }
+
+    public synchronized boolean deposit(double amount, Consumer<String> refusals) {
         if (isFrozen) {
-            System.out.println("\u001B[31m❌ Transaction denied! Account is frozen.\u001B[0m");
-            return;
+            refusals.accept("Transaction denied! Account is frozen.");
+            return false;
         }
-        if (amount > 0) {
-            balance += amount;
-            addTransaction("Deposited: ₹" + amount + " | New Balance: ₹" + balance, null);
+        if (Money.isValidAmount(amount)) {
+            long paise = Money.toPaise(amount);
+            credit(paise);
+            logEntry(TransactionLedger.Template.DEPOSIT, Money.toRupees(paise), null, null);
+            return true;
         } else {
-            System.out.println("Invalid deposit amount!");
+            refusals.accept("Invalid deposit amount!");
+            return false;
         }
     }
 
     public boolean withdraw(double amount) {
+        return withdraw(amount, CONSOLE_REFUSALS);
+    }
+
+    public synchronized boolean withdraw(double amount, Consumer<String> refusals) {
         if (isFrozen) {
-            System.out.println("\u001B[31m❌ Transaction denied! Account is frozen.\u001B[0m");
+            refusals.accept("Transaction denied! Account is frozen.");
             return false;
         }
-        if (amount <= 0) {
-            System.out.println("Invalid withdrawal amount!");
+        if (!Money.isValidAmount(amount)) {
+            refusals.accept("Invalid withdrawal amount!");
             return false;
         }
+        long paise = Money.toPaise(amount);
 
-        double withdrawalFee = accountType.getWithdrawalFee();
-        double gst = withdrawalFee * GST_RATE;
-        double totalDeduction = amount + withdrawalFee + gst;
+        long withdrawalFee = Money.toPaise(accountType.getWithdrawalFee());
+        long gst = gstOn(withdrawalFee);
+        long totalDeduction = paise + withdrawalFee + gst;
 
-        double maxWithdrawable = balance + accountType.getOverdraftLimit();
-
-        if (totalDeduction > maxWithdrawable) {
-            System.out.println("Insufficient funds! Required: ₹" + String.format("%.2f", totalDeduction));
-            if (accountType.getOverdraftLimit() > 0) {
-                System.out.println("Available Limit (inc. OD): ₹" + String.format("%.2f", maxWithdrawable));
-            }
+        if (!tryDebit(totalDeduction, Money.toPaise(accountType.getOverdraftLimit()))) {
+            refusals.accept(insufficientFunds(totalDeduction));
             return false;
         }
+        FEES.getAndAdd(this, withdrawalFee + gst); // Track revenue
 
-        balance -= totalDeduction;
-        cumulativeFees += (withdrawalFee + gst); // Track revenue
-
-        addTransaction("Withdrawal: ₹" + amount + " | New Balance: ₹" + balance, null);
+        logEntry(TransactionLedger.Template.WITHDRAWAL, Money.toRupees(paise), null, null);
         // Only log fee if greater than 0
         if (withdrawalFee > 0) {
             logFeeWithGst("Withdrawal fee", withdrawalFee, gst, null);
@@ -208,34 +274,31 @@ public class BankAccount implements java.io.Serializable {
     }
 
     public boolean transferOut(double amount, String toAccount, String remark) {
+        return transferOut(amount, toAccount, remark, CONSOLE_REFUSALS);
+    }
+
+    synchronized boolean transferOut(double amount, String toAccount, String remark, Consumer<String> refusals) {
         if (isFrozen) {
-            System.out.println("\u001B[31m❌ Transaction denied! Account is frozen.\u001B[0m");
+            refusals.accept("Transaction denied! Account is frozen.");
             return false;
         }
-        if (amount <= 0) {
-            System.out.println("Invalid transfer amount!");
+        if (!Money.isValidAmount(amount)) {
+            refusals.accept("Invalid transfer amount!");
             return false;
         }
+        long paise = Money.toPaise(amount);
 
-        double transferFee = accountType.getTransferFee();
-        double gst = transferFee * GST_RATE;
-        double totalDeduction = amount + transferFee + gst;
+        long transferFee = Money.toPaise(accountType.getTransferFee());
+        long gst = gstOn(transferFee);
+        long totalDeduction = paise + transferFee + gst;
 
-        double maxWithdrawable = balance + accountType.getOverdraftLimit();
-
-        if (totalDeduction > maxWithdrawable) {
-            System.out.println("Insufficient funds! Required: ₹" + String.format("%.2f", totalDeduction));
-            if (accountType.getOverdraftLimit() > 0) {
-                System.out.println("Available Limit (inc. OD): ₹" + String.format("%.2f", maxWithdrawable));
-            }
+        if (!tryDebit(totalDeduction, Money.toPaise(accountType.getOverdraftLimit()))) {
+            refusals.accept(insufficientFunds(totalDeduction));
             return false;
         }
+        FEES.getAndAdd(this, transferFee + gst); // Track revenue
 
-        balance -= totalDeduction;
-        cumulativeFees += (transferFee + gst); // Track revenue
-
-        addTransaction("Wire transfer sent to " + toAccount + " | Amount: ₹" + amount +
-                " | New Balance: ₹" + balance, remark);
+        logEntry(TransactionLedger.Template.TRANSFER_OUT, Money.toRupees(paise), toAccount, remark);
         // Only log fee if greater than 0
         if (transferFee > 0) {
             logFeeWithGst("Transfer fee", transferFee, gst, remark);
@@ -244,52 +307,126 @@ public class BankAccount implements java.io.Serializable {
         return true;
     }
 
-    public void transferIn(double amount, String fromAccount, String remark) {
+    private String insufficientFunds(long required) {
+        String reason = "Insufficient funds! Required: ₹" + String.format("%.2f", Money.toRupees(required));
+        if (accountType.getOverdraftLimit() > 0) {
+            reason += " - Available Limit (inc. OD): ₹"
+                    + String.format("%.2f", getBalance() + accountType.getOverdraftLimit());
+        }
+        return reason;
+    }
+
+    public boolean transferIn(double amount, String fromAccount, String remark) {
+        return transferIn(amount, fromAccount, remark, CONSOLE_REFUSALS);
+    }
+
+    synchronized boolean transferIn(double amount, String fromAccount, String remark, Consumer<String> refusals) {
         if (isFrozen) {
-            System.out.println("\u001B[31m❌ Cannot receive transfer! Account is frozen.\u001B[0m");
-            return;
+            refusals.accept("Cannot receive transfer! Account is frozen.");
+            return false;
+        }
+        if (!Money.isValidAmount(amount)) {
+            refusals.accept("Invalid transfer amount!");
+            return false;
         }
-        balance += amount;
-        addTransaction("Wire transfer received from " + fromAccount + " | Amount: ₹" + amount +
-                " | New Balance: ₹" + balance, remark);
+        long paise = Money.toPaise(amount);
+        credit(paise);
+        logEntry(TransactionLedger.Template.TRANSFER_IN, Money.toRupees(paise), fromAccount, remark);
+        return true;
+    }
+
+    // Whether transferIn would accept a credit right now
+    synchronized boolean canReceiveTransfer() {
+        return isActive && !isFrozen;
+    }
+
+    // Undo a transferOut whose credit failed: the amount and its fee and GST are refunded
+    synchronized void reverseTransferOut(double amount, String toAccount) {
+        long transferFee = Money.toPaise(accountType.getTransferFee());
+        long gst = gstOn(transferFee);
+        long refund = Money.toPaise(amount) + transferFee + gst;
+        long newBalance = credit(refund);
+        FEES.getAndAdd(this, -(transferFee + gst));
+        addTransaction("Reversal of transfer to " + toAccount + " | Refund: ₹" + Money.toRupees(refund)
+                + " | New Balance: ₹" + Money.toRupees(newBalance), null);
+    }
+
+    // Payroll (PayrollEngine): takes count salaries with their transfer fees and GST in one
+    // debit before anything is paid. The account is marked changed here; PayrollEngine marks
+    // each employee it credits, so both sides reach the journal
+    synchronized boolean reservePayroll(long salaryPaise, int count) {
+        if (isFrozen || !isActive) {
+            return false;
+        }
+        long fee = Money.toPaise(accountType.getTransferFee());
+        // Throws ArithmeticException rather than wrapping; PayrollEngine reports it
+        long total = Math.multiplyExact(Math.addExact(Math.addExact(salaryPaise, fee), gstOn(fee)), (long) count);
+        if (!tryDebit(total, Money.toPaise(accountType.getOverdraftLimit()))) {
+            return false;
+        }
+        ChangeTracker.accountChanged(this);
+        return true;
+    }
+
+    // Refunds the salaries that could not be paid and records the batch as one debit plus its
+    // fee and GST; returns the fee and GST charged, in paise
+    synchronized long settlePayroll(long salaryPaise, int reserved, int paid) {
+        long fee = Money.toPaise(accountType.getTransferFee());
+        long gst = gstOn(fee);
+        if (paid < reserved) {
+            credit((salaryPaise + fee + gst) * (reserved - paid));
+            ChangeTracker.accountChanged(this);
+        }
+        if (paid == 0) {
+            return 0;
+        }
+        FEES.getAndAdd(this, (fee + gst) * paid); // Track revenue
+        logEntry(TransactionLedger.Template.PAYROLL, Money.toRupees(salaryPaise * paid), String.valueOf(paid),
+                "Payroll");
+        logFeeWithGst("Transfer fee", fee * paid, gst * paid, "Payroll");
+        return (fee + gst) * paid;
     }
 
     public double calculateInterest() {
+        return Money.toRupees(monthlyInterest());
+    }
+
+    private long monthlyInterest() {
         if (accountType == AccountType.CORPORATE)
-            return 0.0; // No interest for Corporate
+            return 0; // No interest for Corporate
         double monthlyRate = ANNUAL_INTEREST_RATE / 12 / 100;
-        return balance * monthlyRate;
+        return Math.round(balancePaise * monthlyRate);
     }
 
-    public void applyInterest(BankAccount treasury) {
-        double interest = calculateInterest();
+    public synchronized void applyInterest(BankAccount treasury) {
+        long interest = monthlyInterest();
         if (interest > 0) {
             // Attempt to pay from Treasury
-            if (treasury.transferOut(interest, accountNumber, "Interest Payment")) {
-                balance += interest;
-                cumulativeInterest += interest; // Track cost
-                addTransaction("Interest credited: ₹" + String.format("%.2f", interest) +
-                        " (Rate: " + ANNUAL_INTEREST_RATE + "% p.a.) | New Balance: ₹" + balance);
+            if (treasury.transferOut(Money.toRupees(interest), accountNumber, "Interest Payment")) {
+                long newBalance = credit(interest);
+                INTEREST.getAndAdd(this, interest); // Track cost
+                addTransaction("Interest credited: ₹" + String.format("%.2f", Money.toRupees(interest)) +
+                        " (Rate: " + ANNUAL_INTEREST_RATE + "% p.a.) | New Balance: ₹" + Money.toRupees(newBalance));
             } else {
                 System.out.println("  [Treasury] Failed to pay interest to " + accountNumber + " (Insufficient Funds)");
             }
         }
     }
 
-    public boolean applyMaintenanceCharge(BankAccount treasury) {
+    public synchronized boolean applyMaintenanceCharge(BankAccount treasury) {
         if (!isActive)
             return false;
 
-        if (balance < accountType.getMinimumBalance()) {
-            double maintenanceCharge = accountType.getMaintenanceCharge();
-            double gst = maintenanceCharge * GST_RATE;
-            double total = maintenanceCharge + gst;
+        if (balancePaise < Money.toPaise(accountType.getMinimumBalance())) {
+            long maintenanceCharge = Money.toPaise(accountType.getMaintenanceCharge());
+            long gst = gstOn(maintenanceCharge);
+            long total = maintenanceCharge + gst;
 
-            balance -= total;
-            cumulativeFees += total; // Track revenue
+            long newBalance = credit(-total);
+            FEES.getAndAdd(this, total); // Track revenue
 
             // Transfer to Treasury
-            treasury.deposit(total);
+            treasury.deposit(Money.toRupees(total));
             // We add a specific remark to treasury manually?
             // deposit() adds generic log.
             // We can assume Treasury tracks deposits.
@@ -297,7 +434,7 @@ public class BankAccount implements java.io.Serializable {
 
             addTransaction("Account Maintenance Charge (AMC) applied | Reason: Balance below minimum ₹"
                     + accountType.getMinimumBalance() +
-                    " | New Balance: ₹" + balance);
+                    " | New Balance: ₹" + Money.toRupees(newBalance));
             // Only log fee if greater than 0
             if (maintenanceCharge > 0) {
                 logFeeWithGst("AMC", maintenanceCharge, gst, null);
@@ -335,13 +472,13 @@ public class BankAccount implements java.io.Serializable {
                 + String.format("%,.2f", accountType.getMinimumBalance()) + RESET);
         System.out.println(DIM + "  ├─────────────────────────────────────────────────────────────┤" + RESET);
         System.out.println(DIM + "  │ " + RESET + BRIGHT_GREEN + "Current Balance: " + RESET + BOLD + WHITE + "₹ "
-                + String.format("%,.2f", balance) + RESET);
+                + String.format("%,.2f", getBalance()) + RESET);
         System.out.println(DIM + "  │ " + RESET + "Status:          "
                 + (isActive ? GREEN + "● Active" : RED + "● Closed") + RESET);
         System.out.println(DIM + "  └─────────────────────────────────────────────────────────────┘" + RESET);
     }
 
-    public void displayTransactionHistory() {
+    public synchronized void displayTransactionHistory() {
         // ANSI Colors
         String RESET = "\u001B[0m";
         String BOLD = "\u001B[1m";
@@ -361,35 +498,37 @@ public class BankAccount implements java.io.Serializable {
                 .println(DIM + "  │ " + RESET + "Account: " + BOLD + accountNumber + RESET + " | " + accountHolderName);
         System.out.println(DIM + "  ├─────────────────────────────────────────────────────────────┤" + RESET);
 
-        if (transactionHistory.isEmpty()) {
+        // Only the latest page; older entries are browsed page by page (StatementPager)
+        int transactionCount = getTransactionCount();
+        int firstShown = Math.max(0, transactionCount - PASSBOOK_PAGE_SIZE);
+        TransactionLedger ledger = historySlice(firstShown, transactionCount);
+        if (ledger.isEmpty()) {
             System.out.println(DIM + "  │ " + RESET + DIM + "No transactions recorded yet" + RESET);
         } else {
             int count = 0;
-            int total = transactionHistory.size();
+            int total = ledger.size();
 
-            for (String transaction : transactionHistory) {
+            for (int i = 0; i < total; i++) {
+                String transaction = ledger.lineAt(i);
                 count++;
 
-                // Parse transaction for better formatting
+                // Icon and colour follow the entry's type
                 String icon = "  ";
                 String color = WHITE;
 
-                if (transaction.contains("deposit") || transaction.contains("credited")
-                        || transaction.contains("Transfer In") || transaction.contains("FD closed")
-                        || transaction.contains("RD closed")) {
-                    icon = "↓ ";
-                    color = BRIGHT_GREEN;
-                } else if (transaction.contains("withdraw") || transaction.contains("debited")
-                        || transaction.contains("Transfer Out") || transaction.contains("Charge")
-                        || transaction.contains("Fixed Deposit created") || transaction.contains("Recurring Deposit created")) {
-                    icon = "↑ ";
-                    color = RED;
-                } else if (transaction.contains("Account created")) {
+                TransactionType type = ledger.typeAt(i);
+                if (type == TransactionType.ACCOUNT_OPENING) {
                     icon = "★ ";
                     color = BRIGHT_YELLOW;
-                } else if (transaction.contains("Interest")) {
+                } else if (type == TransactionType.INTEREST) {
                     icon = "+ ";
                     color = GREEN;
+                } else if (type.getDirection() == TransactionEntry.Direction.CREDIT) {
+                    icon = "↓ ";
+                    color = BRIGHT_GREEN;
+                } else if (type.getDirection() == TransactionEntry.Direction.DEBIT) {
+                    icon = "↑ ";
+                    color = RED;
                 }
 
                 System.out.println(DIM + "  │ " + RESET + color + icon + RESET + DIM + transaction + RESET);
@@ -402,22 +541,21 @@ public class BankAccount implements java.io.Serializable {
         }
 
         System.out.println(DIM + "  ├─────────────────────────────────────────────────────────────┤" + RESET);
-        System.out.println(DIM + "  │ " + RESET + "Total Transactions: " + BOLD + transactionHistory.size() + RESET);
+        if (firstShown > 0) {
+            System.out.println(DIM + "  │ " + RESET + DIM + "Showing the latest " + ledger.size() + " entries" + RESET);
+        }
+        System.out.println(DIM + "  │ " + RESET + "Total Transactions: " + BOLD + transactionCount + RESET);
         System.out.println(DIM + "  │ " + RESET + "Current Balance:    " + BRIGHT_GREEN + BOLD + "₹ "
-                + String.format("%,.2f", balance) + RESET);
+                + String.format("%,.2f", getBalance()) + RESET);
         System.out.println(DIM + "  └─────────────────────────────────────────────────────────────┘" + RESET);
     }
 
-    public void displayQuickStatement() {
+    public synchronized void displayQuickStatement() {
         // ANSI Colors
         String RESET = "\u001B[0m";
         String BOLD = "\u001B[1m";
-        String DIM = "\u001B[2m";
         String CYAN = "\u001B[36m";
-        String BRIGHT_GREEN = "\u001B[92m";
-        String BRIGHT_RED = "\u001B[91m";
         String BRIGHT_CYAN = "\u001B[96m";
-        String WHITE = "\u001B[37m";
 
         System.out.println();
         printPlainLine(BOLD + CYAN + "QUICK STATEMENT (Last 5 Transactions)" + RESET, RESET);
@@ -425,111 +563,28 @@ public class BankAccount implements java.io.Serializable {
                 RESET);
         printPlainLine("", RESET);
 
-        if (transactionHistory.isEmpty()) {
-            printPlainLine(DIM + "No transactions recorded" + RESET, RESET);
-        } else {
-            int start = Math.max(0, transactionHistory.size() - 5);
-            double runningBalance = balance;
-
-            for (int i = start; i < transactionHistory.size(); i++) {
-                String transaction = transactionHistory.get(i);
-
-                String date = "mm/dd/yyyy";
-                String description = "Transaction";
-                double creditAmt = 0.0;
-                double debitAmt = 0.0;
-
-                // Parse date
-                if (transaction.startsWith("[")) {
-                    int endBracket = transaction.indexOf("]");
-                    if (endBracket > 0) {
-                        String timestamp = transaction.substring(1, endBracket);
-                        try {
-                            Date txDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(timestamp);
-                            date = new SimpleDateFormat("MM/dd/yyyy").format(txDate);
-                        } catch (Exception e) {
-                            date = timestamp.substring(0, Math.min(10, timestamp.length()));
-                        }
-                        description = transaction.substring(endBracket + 2).trim();
-                    }
-                }
-
-                // Extract amount and compress description
-                String compressedDesc = compressDescription(description);
-                double amount = extractAmount(description);
-
-                // Determine if credit or debit
-                if (description.contains("Deposited:") || description.contains("received") ||
-                        description.contains("Interest credited") || description.contains("Account created") ||
-                        description.contains("FD closed") || description.contains("RD closed")) {
-                    creditAmt = amount;
-                } else if (description.contains("Withdrawal") || description.contains("sent") ||
-                        description.contains("charged") || description.contains("Fee") ||
-                        description.contains("GST") || description.contains("Fixed Deposit created") ||
-                        description.contains("Recurring Deposit created")) {
-                    debitAmt = amount;
-                }
-
-                // Format credit and debit columns
-                String creditStr = creditAmt > 0 ? String.format("%,13.2f", creditAmt) : String.format("%13s", "0.00");
-                String debitStr = debitAmt > 0 ? String.format("%,12.2f", debitAmt) : String.format("%12s", "0.00");
-
-                String row = WHITE + String.format("%-12s", date) + RESET + "  "
-                        + DIM + String.format("%-20s", compressedDesc) + RESET
-                        + (creditAmt > 0 ? BRIGHT_GREEN : "") + creditStr + RESET + " "
-                        + (debitAmt > 0 ? BRIGHT_RED : "") + debitStr + RESET + " "
-                        + BOLD + WHITE + String.format("%,13.2f", runningBalance) + RESET;
-                printPlainLine(row, RESET);
-            }
-        }
+        // Latest page of five, rendered by the statement pager
+        new StatementPager(this, 5).printRows(System.out);
 
         printPlainLine("", RESET);
-        printPlainLine("Current Balance: ₹ " + String.format("%,.2f", balance), RESET);
+        printPlainLine("Current Balance: ₹ " + String.format("%,.2f", getBalance()), RESET);
     }
 
-    // Helper method to compress description to 3-4 words
-    private String compressDescription(String fullDesc) {
-        // Remove extra details after | or :
+    // Short statement label of an entry: its type's label, else the first 3 words of its description
+    static String compressDescription(TransactionLedger ledger, int index) {
+        String label = ledger.typeAt(index).getLabel();
+        if (label != null) {
+            return label;
+        }
+        if (ledger.timeAt(index) == TransactionLedger.NO_TIME) {
+            return "Transaction";
+        }
+        String fullDesc = ledger.descriptionAt(index);
+        // Remove extra details after |
         if (fullDesc.contains("|")) {
             fullDesc = fullDesc.substring(0, fullDesc.indexOf("|")).trim();
         }
 
-        // Extract key words
-        if (fullDesc.contains("GST"))
-            return "GST Charge";
-        if (fullDesc.contains("Deposited:"))
-            return "Deposit";
-        if (fullDesc.contains("Withdrawal:"))
-            return "Withdrawal";
-        if (fullDesc.contains("Wire transfer sent"))
-            return "Transfer Out";
-        if (fullDesc.contains("Wire transfer received"))
-            return "Transfer In";
-        if (fullDesc.contains("Interest credited"))
-            return "Interest Credit";
-        if (fullDesc.contains("Account created"))
-            return "Account Opening";
-        if (fullDesc.contains("Joining fee"))
-            return "Joining Fee";
-        if (fullDesc.contains("Withdrawal fee"))
-            return "Withdrawal Fee";
-        if (fullDesc.contains("Transfer fee"))
-            return "Transfer Fee";
-        if (fullDesc.contains("Maintenance Charge"))
-            return "AMC Charge";
-        if (fullDesc.contains("Fixed Deposit created"))
-            return "FD Created";
-        if (fullDesc.contains("FD closed"))
-            return "FD Closed";
-        if (fullDesc.contains("Recurring Deposit created"))
-            return "RD Created";
-        if (fullDesc.contains("RD installment"))
-            return "RD Payment";
-        if (fullDesc.contains("RD closed"))
-            return "RD Closed";
-        if (fullDesc.contains("Cheque book"))
-            return "Cheque Request";
-
         // Default: take first 3 words
         String[] words = fullDesc.split("\\s+");
         int wordCount = Math.min(3, words.length);
@@ -540,60 +595,61 @@ public class BankAccount implements java.io.Serializable {
         return result.toString().trim();
     }
 
-    // Helper method to extract amount from transaction description
-    private double extractAmount(String description) {
-        try {
-            // Look for patterns like "₹1000" or "Amount: ₹1000" or "Deposited: ₹1000"
-            if (description.contains("₹")) {
-                String[] parts = description.split("₹");
-                for (String part : parts) {
-                    // Extract number after ₹
-                    String numStr = part.trim().split("[\\s|]")[0].replaceAll(",", "");
-                    try {
-                        return Double.parseDouble(numStr);
-                    } catch (NumberFormatException e) {
-                        continue;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // If parsing fails, return 0
-        }
-        return 0.0;
+    public synchronized void addTransaction(String description, String remark) {
+        LocalDateTime now = LocalDateTime.ofEpochSecond(BankClock.nowLocalSeconds(), 0, ZoneOffset.UTC);
+        HistoryTotals totals = totals();
+        TransactionLedger ledger = ledger();
+        ledger.append(now, description, remark != null && !remark.isEmpty() ? remark : null);
+        totals.add(ledger, ledger.size() - 1);
+        ChangeTracker.accountChanged(this);
     }
 
-    public void addTransaction(String description, String remark) {
-        String timestamp = dateFormat.format(new Date());
-        String entry = "[" + timestamp + "] " + description;
-        if (remark != null && !remark.isEmpty()) {
-            entry += " | Remark: " + remark;
-        }
-        transactionHistory.add(entry);
+    // Deposits, withdrawals, transfers and fees: the figures are recorded as they are and
+    // the description is rendered from the template when displayed - nothing is allocated
+    private synchronized void logEntry(TransactionLedger.Template template, double amount, String subject,
+            String remark) {
+        HistoryTotals totals = totals();
+        TransactionLedger ledger = ledger();
+        ledger.append(BankClock.nowLocalSeconds(), template, amount, getBalance(), subject,
+                remark != null && !remark.isEmpty() ? remark : null);
+        totals.add(ledger, ledger.size() - 1);
+        ChangeTracker.accountChanged(this);
     }
 
     public void addTransaction(String description) {
         addTransaction(description, null);
     }
 
-    public void addRestoredTransaction(String entry) {
-        transactionHistory.add(entry);
+    public synchronized void addRestoredTransaction(String entry) {
+        HistoryTotals totals = totals();
+        TransactionLedger ledger = ledger();
+        ledger.appendLine(entry);
+        totals.add(ledger, ledger.size() - 1);
+    }
+
+    // Journal replay - overwrite scalar state with the values recorded after a transaction
+    public synchronized void restoreJournalState(double balance, double cumulativeFees, double cumulativeInterest,
+            boolean isActive, boolean isFrozen) {
+        this.balancePaise = Money.toPaise(balance);
+        this.feesPaise = Money.toPaise(cumulativeFees);
+        this.interestPaise = Money.toPaise(cumulativeInterest);
+        this.isActive = isActive;
+        this.isFrozen = isFrozen;
     }
 
     // Log base fee and GST as two separate transactions (no extra balance changes)
     // Only logs if amounts are greater than 0
-    private void logFeeWithGst(String label, double baseAmount, double gstAmount, String remark) {
+    private void logFeeWithGst(String label, long baseAmount, long gstAmount, String remark) {
         if (baseAmount > 0) {
-            addTransaction(label + " | Base: ₹" + String.format("%.2f", baseAmount) +
-                    " | New Balance: ₹" + balance, remark);
+            logEntry(TransactionLedger.Template.FEE, Money.toRupees(baseAmount), label, remark);
         }
         if (gstAmount > 0) {
-            addTransaction("GST Charge on " + label + " | GST: ₹" + String.format("%.2f", gstAmount) +
-                    " | New Balance: ₹" + balance, remark);
+            logEntry(TransactionLedger.Template.GST, Money.toRupees(gstAmount), label, remark);
         }
     }
 
     // Account Management Methods
-    public void freezeAccount() {
+    public synchronized void freezeAccount() {
         if (!isFrozen) {
             isFrozen = true;
             addTransaction("Account frozen for security");
@@ -601,7 +657,7 @@ public class BankAccount implements java.io.Serializable {
         }
     }
 
-    public void unfreezeAccount() {
+    public synchronized void unfreezeAccount() {
         if (isFrozen) {
             isFrozen = false;
             addTransaction("Account unfrozen");
@@ -613,8 +669,9 @@ public class BankAccount implements java.io.Serializable {
         return isFrozen;
     }
 
-    public void requestChequeBook() {
+    public synchronized void requestChequeBook() {
         chequeBookRequests++;
+        ChangeTracker.structureChanged(); // Not carried by the journal
         addTransaction("Cheque book requested - Request #" + chequeBookRequests);
         System.out.println("✓ Cheque book request submitted. Request ID: CHQ" + chequeBookRequests);
     }
@@ -623,24 +680,24 @@ public class BankAccount implements java.io.Serializable {
         return chequeBookRequests;
     }
 
-    public java.util.List<String> getStatement() {
-        return new java.util.ArrayList<>(transactionHistory);
+    // Recent (in-memory) history only; getTransactionHistory() includes archived entries
+    public synchronized java.util.List<String> getStatement() {
+        return ledger().lines(0, ledger().size());
     }
 
     // Fixed Deposit Methods
-    public String createFixedDeposit(double amount, int tenureMonths) {
-        if (amount > balance) {
-            System.out.println("✗ Insufficient balance for FD creation");
-            return null;
-        }
-
+    // fdNumber comes from Bank.nextFixedDepositNumber()
+    public synchronized String createFixedDeposit(String fdNumber, double amount, int tenureMonths) {
         if (amount < 10000) {
             System.out.println("✗ Minimum FD amount is ₹10,000");
             return null;
         }
 
         // Deduct from account
-        balance -= amount;
+        if (!tryDebit(Money.toPaise(amount), 0)) {
+            System.out.println("✗ Insufficient balance for FD creation");
+            return null;
+        }
 
         // Determine interest rate based on tenure
         double interestRate = 6.5; // Base rate
@@ -651,9 +708,9 @@ public class BankAccount implements java.io.Serializable {
         if (tenureMonths >= 36)
             interestRate = 8.0;
 
-        String fdNumber = "FD" + System.currentTimeMillis();
         FixedDeposit fd = new FixedDeposit(fdNumber, accountNumber, amount, tenureMonths, interestRate);
         fixedDeposits.add(fd);
+        ChangeTracker.structureChanged(); // The journal carries no FDs
 
         addTransaction("Fixed Deposit created - " + fdNumber + " | Amount: ₹" + amount +
                 " | Tenure: " + tenureMonths + " months | Rate: " + interestRate + "%");
@@ -682,7 +739,7 @@ public class BankAccount implements java.io.Serializable {
         System.out.println(DIM + "  └─────────────────────────────────────────────────────────────┘" + RESET);
     }
 
-    public boolean closeFD(String fdNumber, boolean premature) {
+    public synchronized boolean closeFD(String fdNumber, boolean premature) {
         for (FixedDeposit fd : fixedDeposits) {
             if (fd.getFdNumber().equals(fdNumber) && fd.isActive()) {
                 if (premature) {
@@ -692,8 +749,10 @@ public class BankAccount implements java.io.Serializable {
                     fd.checkMaturity();
                 }
 
-                balance += fd.getMaturityAmount();
+                credit(Money.toPaise(fd.getMaturityAmount()));
                 fd.closeFD();
+                // The journal carries no FD state - a snapshot keeps the close with the credit
+                ChangeTracker.structureChanged();
                 addTransaction("FD closed - " + fdNumber + " | Amount credited: ₹" +
                         String.format("%.2f", fd.getMaturityAmount()));
                 return true;
@@ -703,7 +762,8 @@ public class BankAccount implements java.io.Serializable {
     }
 
     // Recurring Deposit Methods
-    public String createRecurringDeposit(double monthlyAmount, int tenureMonths) {
+    // rdNumber comes from Bank.nextRecurringDepositNumber()
+    public synchronized String createRecurringDeposit(String rdNumber, double monthlyAmount, int tenureMonths) {
         if (monthlyAmount < 500) {
             System.out.println("✗ Minimum RD installment is ₹500");
             return null;
@@ -715,9 +775,9 @@ public class BankAccount implements java.io.Serializable {
         if (tenureMonths >= 24)
             interestRate = 7.0;
 
-        String rdNumber = "RD" + System.currentTimeMillis();
         RecurringDeposit rd = new RecurringDeposit(rdNumber, accountNumber, monthlyAmount, tenureMonths, interestRate);
         recurringDeposits.add(rd);
+        ChangeTracker.structureChanged(); // The journal carries no RDs
 
         addTransaction("Recurring Deposit created - " + rdNumber + " | Monthly: ₹" + monthlyAmount +
                 " | Tenure: " + tenureMonths + " months");
@@ -725,17 +785,18 @@ public class BankAccount implements java.io.Serializable {
         return rdNumber;
     }
 
-    public boolean payRDInstallment(String rdNumber) {
+    public synchronized boolean payRDInstallment(String rdNumber) {
         for (RecurringDeposit rd : recurringDeposits) {
             if (rd.getRdNumber().equals(rdNumber) && rd.isActive()) {
                 double installment = rd.getMonthlyInstallment();
-                if (balance < installment) {
+                if (!tryDebit(Money.toPaise(installment), 0)) {
                     System.out.println("✗ Insufficient balance for RD installment");
                     return false;
                 }
 
-                balance -= installment;
                 rd.payInstallment();
+                // installmentsPaid is not journaled - a snapshot keeps it with the debit
+                ChangeTracker.structureChanged();
                 addTransaction("RD installment paid - " + rdNumber + " | Amount: ₹" + installment);
                 return true;
             }
@@ -764,11 +825,13 @@ public class BankAccount implements java.io.Serializable {
         System.out.println(DIM + "  └─────────────────────────────────────────────────────────────┘" + RESET);
     }
 
-    public boolean closeRD(String rdNumber) {
+    public synchronized boolean closeRD(String rdNumber) {
         for (RecurringDeposit rd : recurringDeposits) {
             if (rd.getRdNumber().equals(rdNumber) && rd.isActive()) {
                 rd.closeRD();
-                balance += rd.getMaturityAmount();
+                credit(Money.toPaise(rd.getMaturityAmount()));
+                // The journal carries no RD state - a snapshot keeps the close with the credit
+                ChangeTracker.structureChanged();
                 addTransaction("RD closed - " + rdNumber + " | Amount credited: ₹" +
                         String.format("%.2f", rd.getMaturityAmount()));
                 return true;
@@ -785,12 +848,201 @@ public class BankAccount implements java.io.Serializable {
         return recurringDeposits;
     }
 
-    public ArrayList<String> getTransactionHistory() {
-        return transactionHistory;
+    // Whole history as text lines (a copy; archived entries are read back from disk)
+    public synchronized ArrayList<String> getTransactionHistory() {
+        return historyFrom(0, (ledger, start) -> ledger.lines(start, ledger.size()));
+    }
+
+    // Lines from index 'from' on - what the journal and MySQL sync append
+    public synchronized java.util.List<String> getTransactionLines(int from) {
+        return historyFrom(from, (ledger, start) -> ledger.lines(start, ledger.size()));
+    }
+
+    public synchronized java.util.List<TransactionEntry> getTransactionEntries(int from) {
+        return historyFrom(from, (ledger, start) -> ledger.entries(start, ledger.size()));
+    }
+
+    // Number of history entries, without decoding a history still held in the snapshot
+    public synchronized int getTransactionCount() {
+        return archivedCount() + (storedHistory != null ? storedHistory.size() : ledger.size());
+    }
+
+    private int archivedCount() {
+        return archivedHistory.isEmpty() ? 0 : archivedHistory.get(archivedHistory.size() - 1).end();
+    }
+
+    // Entries from index 'from' of the whole history; archived segments are only read if it reaches them
+    private synchronized <T> ArrayList<T> historyFrom(int from,
+            java.util.function.BiFunction<TransactionLedger, Integer, ArrayList<T>> range) {
+        int archived = archivedCount();
+        TransactionLedger hot = ledger();
+        if (from >= archived) {
+            return range.apply(hot, Math.min(from - archived, hot.size()));
+        }
+        ArrayList<T> result = new ArrayList<>(archived + hot.size() - from);
+        for (HistoryArchive.Segment segment : archivedHistory) {
+            if (segment.end() > from) {
+                result.addAll(range.apply(segment.load(), Math.max(0, from - segment.first)));
+            }
+        }
+        result.addAll(range.apply(hot, 0));
+        return result;
+    }
+
+    // The whole history for statements that cover it; archived segments are read for this call only
+    private synchronized TransactionLedger fullLedger() {
+        return historySlice(0, getTransactionCount());
+    }
+
+    // Entries [from, to) of the whole history, reading only the archived segments they fall in
+    private synchronized TransactionLedger historySlice(int from, int to) {
+        int archived = archivedCount();
+        TransactionLedger hot = ledger();
+        if (from == archived && to == archived + hot.size()) {
+            return hot;
+        }
+        TransactionLedger slice = new TransactionLedger(Math.max(0, to - from));
+        for (HistoryArchive.Segment segment : archivedHistory) {
+            if (segment.end() > from && segment.first < to) {
+                TransactionLedger cold = segment.load();
+                slice.appendRange(cold, Math.max(0, from - segment.first), Math.min(cold.size(), to - segment.first));
+            }
+        }
+        if (to > archived) {
+            slice.appendRange(hot, Math.max(0, from - archived), to - archived);
+        }
+        return slice;
+    }
+
+    // History entries timed in [from, to) - null for an open end - after skipping 'offset' of them,
+    // at most 'limit'. Both ends are found by binary search, so a page costs O(log n + limit).
+    public synchronized java.util.List<TransactionEntry> getTransactionEntries(LocalDateTime from, LocalDateTime to,
+            int offset, int limit) {
+        int end = to != null ? historyIndexAtOrAfter(to) : getTransactionCount();
+        int start = Math.min(end, (from != null ? historyIndexAtOrAfter(from) : 0) + Math.max(0, offset));
+        TransactionLedger page = historySlice(start, (int) Math.min(end, (long) start + Math.max(0, limit)));
+        return page.entries(0, page.size());
+    }
+
+    // Number of history entries timed in [from, to)
+    public synchronized int countTransactions(LocalDateTime from, LocalDateTime to) {
+        int end = to != null ? historyIndexAtOrAfter(to) : getTransactionCount();
+        return Math.max(0, end - (from != null ? historyIndexAtOrAfter(from) : 0));
+    }
+
+    // Index in the whole history of the first entry at or after the time; when that falls in
+    // the archive only the segment holding it is read
+    synchronized int historyIndexAtOrAfter(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        for (HistoryArchive.Segment segment : archivedHistory) {
+            if (segment.lastTime != TransactionLedger.NO_TIME && segment.lastTime >= seconds) {
+                return segment.first + segment.load().indexAtOrAfter(seconds);
+            }
+        }
+        return archivedCount() + ledger().indexAtOrAfter(seconds);
+    }
+
+    // Entries [from, to) as a ledger of their own, safe to read outside the account lock
+    synchronized TransactionLedger historyPage(int from, int to) {
+        TransactionLedger page = historySlice(from, to);
+        if (page == ledger) {
+            page = new TransactionLedger(ledger.size());
+            page.appendRange(ledger, 0, ledger.size());
+        }
+        return page;
+    }
+
+    // End of the next batch of [from, to) to read as one historyPage: at most 'batch' entries,
+    // or the rest of the archived segment 'from' falls in, so each segment is read only once
+    synchronized int historyBatchEnd(int from, int to, int batch) {
+        for (HistoryArchive.Segment segment : archivedHistory) {
+            if (segment.end() > from) {
+                return Math.min(to, segment.end());
+            }
+        }
+        return (int) Math.min(to, (long) from + batch);
+    }
+
+    // Running monthly totals over the whole history; built once from it for data saved without them
+    private synchronized HistoryTotals totals() {
+        if (historyTotals == null) {
+            historyTotals = HistoryTotals.of(fullLedger());
+        }
+        return historyTotals;
+    }
+
+    // Move entries older than the hot window out to segment files. Only histories already in
+    // memory are looked at, so accounts untouched since load are not decoded for it. The entries
+    // are copied under the lock, written and synced without it, and the shorter ledger is
+    // swapped in under the lock again, so deposits and statements never wait on the disk.
+    void archiveOldHistory() {
+        while (true) {
+            TransactionLedger source;
+            TransactionLedger old;
+            int first;
+            synchronized (this) {
+                int count = archivableCount();
+                if (count == 0) {
+                    return;
+                }
+                source = ledger;
+                first = archivedCount();
+                old = new TransactionLedger(count);
+                old.appendRange(ledger, 0, count);
+            }
+            HistoryArchive.Segment segment;
+            try {
+                segment = HistoryArchive.write(accountNumber, old, 0, old.size(), first);
+            } catch (java.io.IOException e) {
+                // Stays in memory; the next snapshot tries again
+                System.err.println("History archive error: " + e.getMessage());
+                return;
+            }
+            synchronized (this) {
+                if (ledger != source || archivedCount() != first) {
+                    // History replaced meanwhile; the unreferenced file goes on the next load
+                    return;
+                }
+                TransactionLedger hot = new TransactionLedger(ledger.size() - segment.count);
+                hot.appendRange(ledger, segment.count, ledger.size());
+                archivedHistory.add(segment);
+                ledger = hot;
+            }
+        }
+    }
+
+    // Leading entries of the ledger to archive next - none unless they fill a segment
+    private synchronized int archivableCount() {
+        if (storedHistory != null || ledger == null) {
+            return 0;
+        }
+        int movable = Math.min(ledger.size() - HistoryArchive.MIN_HOT_ENTRIES, HistoryArchive.MAX_SEGMENT_ENTRIES);
+        if (movable < HistoryArchive.MIN_SEGMENT_ENTRIES) {
+            return 0;
+        }
+        long cutoff = HistoryArchive.cutoff();
+        int count = 0;
+        while (count < movable) {
+            long time = ledger.timeAt(count);
+            if (time != TransactionLedger.NO_TIME && time >= cutoff) {
+                break;
+            }
+            count++;
+        }
+        return count < HistoryArchive.MIN_SEGMENT_ENTRIES ? 0 : count;
+    }
+
+    // History is decoded from the mapped snapshot the first time anything reads or appends to it
+    private synchronized TransactionLedger ledger() {
+        if (storedHistory != null) {
+            ledger = storedHistory.load();
+            storedHistory = null;
+        }
+        return ledger;
     }
 
     // Generate detailed bank statement matching the template format
-    public void generateDetailedStatement(String customerAddress) {
+    public synchronized void generateDetailedStatement(String customerAddress) {
         // ANSI Colors
         String RESET = "\u001B[0m";
         String BOLD = "\u001B[1m";
@@ -806,45 +1058,38 @@ public class BankAccount implements java.io.Serializable {
         String BLUE = "\u001B[34m";
         String BRIGHT_BLUE = "\u001B[94m";
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
-        SimpleDateFormat fullDateFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
-        String currentDate = dateFormat.format(new Date());
+        LocalDate today = LocalDate.now();
+        String currentDate = DateFormats.STATEMENT_DATE.format(today);
 
         // Calculate statement period (last 30 days)
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.add(java.util.Calendar.DAY_OF_MONTH, -30);
-        String periodStart = dateFormat.format(cal.getTime());
-
-        // Calculate totals and statistics
-        double totalCredits = 0;
-        double totalDebits = 0;
-        double largestCredit = 0;
-        double largestDebit = 0;
-
-        // Parse transactions to calculate actual totals
-        for (String transaction : transactionHistory) {
-            double amount = extractAmount(transaction);
-
-            if (transaction.contains("Deposit") || transaction.contains("received") ||
-                    transaction.contains("Interest credited") || transaction.contains("Account created")) {
-                totalCredits += amount;
-
-                if (amount > largestCredit)
-                    largestCredit = amount;
-            } else if (transaction.contains("Withdrawal") || transaction.contains("sent") ||
-                    transaction.contains("charged") || transaction.contains("Fee") ||
-                    transaction.contains("GST")) {
-                totalDebits += amount;
-
-                if (amount > largestDebit)
-                    largestDebit = amount;
+        LocalDate periodFrom = today.minusDays(30);
+        String periodStart = DateFormats.STATEMENT_DATE.format(periodFrom);
+        int firstInPeriod = historyIndexAtOrAfter(periodFrom.atStartOfDay());
+        int transactionCount = getTransactionCount() - firstInPeriod;
+
+        // Totals over the period: whole months come from the running totals, only the entries
+        // of the month the period starts in are read
+        java.time.YearMonth firstWholeMonth = periodFrom.getDayOfMonth() == 1 ? java.time.YearMonth.from(periodFrom)
+                : java.time.YearMonth.from(periodFrom).plusMonths(1);
+        HistoryTotals totals = totals();
+        long creditPaise = totals.creditsSince(firstWholeMonth);
+        long debitPaise = totals.debitsSince(firstWholeMonth);
+        int partEnd = Math.max(firstInPeriod, historyIndexAtOrAfter(firstWholeMonth.atDay(1).atStartOfDay()));
+        TransactionLedger part = historySlice(firstInPeriod, partEnd);
+        for (int i = 0; i < part.size(); i++) {
+            if (part.directionAt(i) == TransactionEntry.Direction.CREDIT) {
+                creditPaise += Money.toPaise(part.amountAt(i));
+            } else if (part.directionAt(i) == TransactionEntry.Direction.DEBIT) {
+                debitPaise += Money.toPaise(part.amountAt(i));
             }
         }
+        double totalCredits = Money.toRupees(creditPaise);
+        double totalDebits = Money.toRupees(debitPaise);
 
         // Calculate opening balance
         // Opening Balance + Credits - Debits = Current Balance
         // Therefore: Opening Balance = Current Balance - Credits + Debits
-        double openingBalance = balance - totalCredits + totalDebits;
+        double openingBalance = getBalance() - totalCredits + totalDebits;
 
         // Print statement header without borders
         System.out.println();
@@ -884,12 +1129,12 @@ public class BankAccount implements java.io.Serializable {
         printPlainLine(BRIGHT_CYAN + "Total Debit Amount:" + RESET + padVisible("", 37) + BRIGHT_RED
                 + String.format("%,19.2f", totalDebits) + RESET, RESET);
         printPlainLine(BRIGHT_CYAN + "Closing Balance:" + RESET + padVisible("", 41) + BOLD + BRIGHT_GREEN
-                + String.format("%,19.2f", balance) + RESET, RESET);
+                + String.format("%,19.2f", getBalance()) + RESET, RESET);
         printPlainLine("", RESET);
         printPlainLine(BRIGHT_CYAN + "Account Type:" + RESET + padVisible("", 44) + BRIGHT_YELLOW
                 + accountType.getDisplayName() + RESET, RESET);
         printPlainLine(BRIGHT_CYAN + "Number of Transactions:" + RESET + padVisible("", 30)
-                + String.format("%d", transactionHistory.size()), RESET);
+                + String.format("%d", transactionCount), RESET);
         printPlainLine("", RESET);
 
         // TRANSACTIONS LIST
@@ -901,46 +1146,25 @@ public class BankAccount implements java.io.Serializable {
                 RESET);
         printPlainLine("───────────────────────────────────────────────────────────────────────────", RESET);
 
-        // Display transactions
+        // Display transactions - only the entries shown are read
+        TransactionLedger ledger = historySlice(firstInPeriod, firstInPeriod + Math.min(15, transactionCount));
         double runningBalance = openingBalance;
         int displayCount = 0;
-        for (String transaction : transactionHistory) {
+        for (int i = 0; i < ledger.size(); i++) {
             if (displayCount >= 15)
                 break; // Limit to 15 transactions
 
-            // Parse transaction
-            String date = "mm/dd/yyyy";
-            String description = "Transaction";
+            LocalDateTime time = ledger.timestampAt(i);
+            String date = time != null ? DateFormats.STATEMENT_DATE.format(time) : "mm/dd/yyyy";
+            String compressedDesc = compressDescription(ledger, i);
             double creditAmt = 0.0;
             double debitAmt = 0.0;
 
-            if (transaction.startsWith("[")) {
-                int endBracket = transaction.indexOf("]");
-                if (endBracket > 0) {
-                    String timestamp = transaction.substring(1, endBracket);
-                    try {
-                        Date txDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(timestamp);
-                        date = dateFormat.format(txDate);
-                    } catch (Exception e) {
-                        date = timestamp.substring(0, Math.min(10, timestamp.length()));
-                    }
-                    description = transaction.substring(endBracket + 2).trim();
-                }
-            }
-
-            // Extract amount and compress description
-            String compressedDesc = compressDescription(description);
-            double amount = extractAmount(description);
-
-            // Determine if credit or debit
-            if (description.contains("Deposit") || description.contains("received") ||
-                    description.contains("Interest credited") || description.contains("Account created")) {
-                creditAmt = amount;
+            if (ledger.directionAt(i) == TransactionEntry.Direction.CREDIT) {
+                creditAmt = ledger.amountAt(i);
                 runningBalance += creditAmt; // Update running balance
-            } else if (description.contains("Withdrawal") || description.contains("sent") ||
-                    description.contains("charged") || description.contains("Fee") ||
-                    description.contains("GST")) {
-                debitAmt = amount;
+            } else if (ledger.directionAt(i) == TransactionEntry.Direction.DEBIT) {
+                debitAmt = ledger.amountAt(i);
                 runningBalance -= debitAmt; // Update running balance
             }
 
@@ -960,7 +1184,7 @@ public class BankAccount implements java.io.Serializable {
 
         printPlainLine("───────────────────────────────────────────────────────────────────────────", RESET);
         printPlainLine(
-                DIM + "Showing " + displayCount + " of " + transactionHistory.size() + " total transactions" + RESET,
+                DIM + "Showing " + displayCount + " of " + transactionCount + " transactions in this period" + RESET,
                 RESET);
         printPlainLine("", RESET);
 
@@ -969,8 +1193,7 @@ public class BankAccount implements java.io.Serializable {
         printPlainLine("", RESET);
 
         // Generation timestamp
-        SimpleDateFormat timestampFormat = new SimpleDateFormat("dd MMM yyyy, hh:mm:ss a");
-        String generatedAt = timestampFormat.format(new Date());
+        String generatedAt = DateFormats.GENERATED_AT.format(LocalDateTime.now());
         printPlainLine(DIM + "Statement generated on: " + generatedAt + RESET, RESET);
         printPlainLine("", RESET);
 
@@ -1018,18 +1241,23 @@ public class BankAccount implements java.io.Serializable {
 
     // ==================== VENDOR MANAGEMENT (CORPORATE) ====================
 
-    public void addVendor(Vendor vendor) {
+    public synchronized void addVendor(Vendor vendor) {
         if (vendors == null) {
             vendors = new ArrayList<>();
         }
         vendors.add(vendor);
+        ChangeTracker.structureChanged(); // The journal only carries payment stats of listed vendors
         System.out.println("\u001B[32m✓ Vendor added successfully!\u001B[0m");
     }
 
-    public boolean removeVendor(String vendorId) {
+    public synchronized boolean removeVendor(String vendorId) {
         if (vendors == null)
             return false;
-        return vendors.removeIf(v -> v.getVendorId().equals(vendorId));
+        boolean removed = vendors.removeIf(v -> v.getVendorId().equals(vendorId));
+        if (removed) {
+            ChangeTracker.structureChanged();
+        }
+        return removed;
     }
 
     public Vendor findVendor(String vendorId) {
@@ -1074,7 +1302,7 @@ public class BankAccount implements java.io.Serializable {
         System.out.println("\n  " + BOLD + "Total Vendors: " + BRIGHT_CYAN + vendors.size() + RESET);
     }
 
-    public boolean payVendor(String vendorId, double amount, String description) {
+    public synchronized boolean payVendor(String vendorId, double amount, String description) {
         Vendor vendor = findVendor(vendorId);
         if (vendor == null) {
             System.out.println("\u001B[31m❌ Vendor not found!\u001B[0m");
@@ -1089,4 +1317,124 @@ public class BankAccount implements java.io.Serializable {
         }
         return false;
     }
+
+    // Legacy data files only; the history comes as lines, as stored before the ledger
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        balancePaise = Money.toPaise(balance);
+        feesPaise = Money.toPaise(cumulativeFees);
+        interestPaise = Money.toPaise(cumulativeInterest);
+        archivedHistory = new ArrayList<>();
+        ledger = TransactionLedger.fromLines(transactionHistory != null ? transactionHistory : new ArrayList<>());
+        transactionHistory = null;
+    }
+
+    // Database restore - the account as stored, without the creation entry, joining fee or output
+    public static BankAccount restore(String accountNumber, String customerId, String accountHolderName,
+            String mobileNumber, double balance, AccountType accountType) {
+        BankAccount account = new BankAccount();
+        account.accountNumber = accountNumber;
+        account.customerId = customerId;
+        account.accountHolderName = accountHolderName;
+        account.mobileNumber = mobileNumber;
+        account.accountType = accountType;
+        account.balancePaise = Money.toPaise(balance);
+        account.ledger = new TransactionLedger();
+        account.historyTotals = new HistoryTotals();
+        account.isActive = true;
+        account.fixedDeposits = new ArrayList<>();
+        account.recurringDeposits = new ArrayList<>();
+        account.vendors = new ArrayList<>();
+        return account;
+    }
+
+    // Snapshot decoding - fields are filled in by readSnapshot, without the creation side effects
+    private BankAccount() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec); archiveOldHistory runs before it
+    synchronized void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(accountNumber);
+        out.writeString(customerId);
+        out.writeString(accountHolderName);
+        out.writeString(mobileNumber);
+        out.writeEnum(accountType);
+        out.writeDouble(getBalance());
+        out.writeBoolean(isActive);
+        out.writeBoolean(isFrozen);
+        out.writeDouble(getCumulativeFees());
+        out.writeDouble(getCumulativeInterest());
+        out.writeVarInt(chequeBookRequests);
+        out.writeVarInt(archivedHistory.size());
+        for (HistoryArchive.Segment segment : archivedHistory) {
+            segment.writeSnapshot(out);
+        }
+        out.writeBoolean(historyTotals != null);
+        if (historyTotals != null) {
+            historyTotals.writeSnapshot(out);
+        }
+        if (storedHistory != null) {
+            // Untouched since load - copy the encoded entries as they are
+            out.writeRawBlock(storedHistory.size(), storedHistory.getBlock());
+        } else {
+            ledger().writeSnapshot(out);
+        }
+        // Lists may be missing on accounts loaded from older serialized data
+        java.util.List<FixedDeposit> fds = fixedDeposits != null ? fixedDeposits : new ArrayList<>();
+        out.writeVarInt(fds.size());
+        for (FixedDeposit fd : fds) {
+            fd.writeSnapshot(out);
+        }
+        java.util.List<RecurringDeposit> rds = recurringDeposits != null ? recurringDeposits : new ArrayList<>();
+        out.writeVarInt(rds.size());
+        for (RecurringDeposit rd : rds) {
+            rd.writeSnapshot(out);
+        }
+        java.util.List<Vendor> vendorList = vendors != null ? vendors : new ArrayList<>();
+        out.writeVarInt(vendorList.size());
+        for (Vendor vendor : vendorList) {
+            vendor.writeSnapshot(out);
+        }
+    }
+
+    static BankAccount readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        BankAccount account = new BankAccount();
+        account.accountNumber = in.readString();
+        account.customerId = in.readString();
+        account.accountHolderName = in.readString();
+        account.mobileNumber = in.readString();
+        account.accountType = in.readEnum(AccountType.class);
+        account.balancePaise = Money.toPaise(in.readDouble());
+        account.isActive = in.readBoolean();
+        account.isFrozen = in.readBoolean();
+        account.feesPaise = Money.toPaise(in.readDouble());
+        account.interestPaise = Money.toPaise(in.readDouble());
+        account.chequeBookRequests = in.readVarInt();
+        int segmentCount = in.readCount();
+        for (int i = 0; i < segmentCount; i++) {
+            account.archivedHistory.add(HistoryArchive.Segment.readSnapshot(in, account.accountNumber));
+        }
+        HistoryArchive.removeUnreferenced(account.accountNumber, account.archivedHistory);
+        if (in.readBoolean()) {
+            account.historyTotals = HistoryTotals.readSnapshot(in);
+        }
+        int historyCount = in.readCount();
+        account.storedHistory = new AccountStore.StoredHistory(in, in.readRecordBody(), historyCount);
+        int fdCount = in.readCount();
+        account.fixedDeposits = new ArrayList<>(fdCount);
+        for (int i = 0; i < fdCount; i++) {
+            account.fixedDeposits.add(FixedDeposit.readSnapshot(in));
+        }
+        int rdCount = in.readCount();
+        account.recurringDeposits = new ArrayList<>(rdCount);
+        for (int i = 0; i < rdCount; i++) {
+            account.recurringDeposits.add(RecurringDeposit.readSnapshot(in));
+        }
+        int vendorCount = in.readCount();
+        account.vendors = new ArrayList<>(vendorCount);
+        for (int i = 0; i < vendorCount; i++) {
+            account.vendors.add(Vendor.readSnapshot(in));
+        }
+        return account;
+    }
 }
@@ -0,0 +1,54 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * BankClock - Local wall-clock time for transaction timestamps.
+ *
+ * Timestamps are local time counted in epoch seconds (as if the local time
+ * were UTC), which is what history lines show. The zone offset is looked up
+ * once and reused until the next daylight-saving transition, so reading the
+ * clock allocates nothing.
+ */
+public final class BankClock {
+    private static volatile OffsetWindow window = new OffsetWindow(0, 0, 0);
+
+    // A zone offset and the span of epoch millis it applies to
+    private static final class OffsetWindow {
+        final long from;
+        final long until;
+        final int offsetSeconds;
+
+        OffsetWindow(long from, long until, int offsetSeconds) {
+            this.from = from;
+            this.until = until;
+            this.offsetSeconds = offsetSeconds;
+        }
+    }
+
+    private BankClock() {
+    }
+
+    public static long nowLocalSeconds() {
+        long now = System.currentTimeMillis();
+        OffsetWindow current = window;
+        if (now < current.from || now >= current.until) {
+            current = refresh(now);
+        }
+        return Math.floorDiv(now, 1000) + current.offsetSeconds;
+    }
+
+    private static OffsetWindow refresh(long now) {
+        ZoneRules rules = ZoneId.systemDefault().getRules();
+        Instant instant = Instant.ofEpochMilli(now);
+        ZoneOffsetTransition previous = rules.previousTransition(instant);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        OffsetWindow current = new OffsetWindow(
+                previous != null ? previous.getInstant().toEpochMilli() : Long.MIN_VALUE,
+                next != null ? next.getInstant().toEpochMilli() : Long.MAX_VALUE,
+                rules.getOffset(instant).getTotalSeconds());
+        window = current;
+        return current;
+    }
+}
@@ -33,13 +33,23 @@ public class BankingApplication {
     private static final String BG_GREEN = "\u001B[42m";
     private static final String BG_CYAN = "\u001B[46m";
 
+    // Transactions per page in the statement browser
+    private static final int STATEMENT_PAGE_SIZE = 20;
+
     public static void main(String[] args) {
         bank = PersistenceManager.loadBank();
+        PersistenceManager.startBackgroundWriter(bank);
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            PersistenceManager.saveBank(bank);
+            PersistenceManager.shutdown(bank);
         }));
 
+        // "--server [port]": serve teller sessions over a socket instead of the console menu
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args.length > 1 ? args[1] : null);
+            return;
+        }
+
         clearScreen();
         showWelcomeScreen();
 
@@ -74,6 +84,21 @@ public class BankingApplication {
         scanner.close();
     }
 
+    private static void runServer(String port) {
+        TellerServer server;
+        try {
+            server = new TellerServer(bank, port != null ? Integer.parseInt(port) : TellerServer.defaultPort());
+        } catch (NumberFormatException e) {
+            showError("Invalid port: " + port);
+            return;
+        } catch (java.io.IOException e) {
+            showError("Could not start the teller server: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.serve();
+    }
+
     // ==================== UI COMPONENTS ====================
 
     private static void clearScreen() {
@@ -696,7 +721,7 @@ public class BankingApplication {
         System.out.println("  " + BRIGHT_CYAN + "Cheque Books:        " + RESET + currentAccount.getChequeBookRequests()
                 + " requested");
         System.out.println(
-                "  " + BRIGHT_CYAN + "Interest Rate:       " + RESET + currentAccount.getInterestRate() + "% p.a.");
+                "  " + BRIGHT_CYAN + "Interest Rate:       " + RESET + BankAccount.getInterestRate() + "% p.a.");
 
         System.out.println();
         pause();
@@ -717,7 +742,7 @@ public class BankingApplication {
         double amount = getDoubleInputDirect();
 
         currentAccount.deposit(amount);
-        PersistenceManager.saveBank(bank); // Auto-save after transaction
+        PersistenceManager.recordTransaction(bank, currentAccount); // Auto-save after transaction
         pause();
     }
 
@@ -729,7 +754,7 @@ public class BankingApplication {
         double amount = getDoubleInputDirect();
 
         currentAccount.withdraw(amount);
-        PersistenceManager.saveBank(bank); // Auto-save after transaction
+        PersistenceManager.recordTransaction(bank, currentAccount); // Auto-save after transaction
         pause();
     }
 
@@ -770,7 +795,7 @@ public class BankingApplication {
 
         if (confirm.equalsIgnoreCase("Y")) {
             bank.wireTransfer(currentAccount.getAccountNumber(), toAcc, amount, remark);
-            PersistenceManager.saveBank(bank); // Auto-save after transaction
+            PersistenceManager.recordTransaction(bank, currentAccount, dest); // Auto-save after transaction
         } else {
             showInfo("Transfer cancelled");
         }
@@ -1046,7 +1071,7 @@ public class BankingApplication {
             return;
         }
 
-        String fdNumber = currentAccount.createFixedDeposit(amount, tenure);
+        String fdNumber = currentAccount.createFixedDeposit(bank.nextFixedDepositNumber(), amount, tenure);
 
         if (fdNumber != null) {
             showSuccess("Fixed Deposit created successfully!");
@@ -1099,7 +1124,7 @@ public class BankingApplication {
             return;
         }
 
-        String rdNumber = currentAccount.createRecurringDeposit(amount, tenure);
+        String rdNumber = currentAccount.createRecurringDeposit(bank.nextRecurringDepositNumber(), amount, tenure);
 
         if (rdNumber != null) {
             showSuccess("Recurring Deposit created successfully!");
@@ -1425,7 +1450,7 @@ public class BankingApplication {
         // Recent Activity
         System.out.println("\n  " + BOLD + "Recent Activity" + RESET);
         System.out.println("  ─────────────────────────────────────────────────────────────");
-        System.out.println("  Transactions:    " + currentAccount.getTransactionHistory().size());
+        System.out.println("  Transactions:    " + currentAccount.getTransactionCount());
 
         // Quick Actions
         System.out.println("\n  " + BOLD + "Quick Actions" + RESET);
@@ -1638,7 +1663,7 @@ public class BankingApplication {
         String desc = scanner.nextLine().trim();
 
         if (currentAccount.payVendor(vendorId, amount, desc)) {
-            PersistenceManager.saveBank(bank);
+            PersistenceManager.recordTransaction(bank, currentAccount);
             showSuccess("Payment successful!");
         } else {
             showError("Payment failed!");
@@ -1715,7 +1740,7 @@ public class BankingApplication {
                 }
             }
 
-            PersistenceManager.saveBank(bank);
+            PersistenceManager.recordTransaction(bank, currentAccount);
             System.out.println("\n  " + GREEN + "✓ Bulk payment complete!" + RESET);
             System.out.println("  Successful: " + success + " | Failed: " + failed);
         }
@@ -1745,7 +1770,20 @@ public class BankingApplication {
         System.out.print("  " + CYAN + "Salary per Employee (₹):" + RESET + " ");
         double salary = getDoubleInputDirect();
 
-        bank.processPayroll(currentAccount.getAccountNumber(), accs, salary);
+        PayrollEngine.Result result = bank.processPayroll(currentAccount.getAccountNumber(), accs, salary);
+        PersistenceManager.recordTransaction(bank, currentAccount);
+        if (result.error != null) {
+            showError(result.error);
+            pause();
+            return;
+        }
+        System.out.println("\n  Paid: " + BOLD + result.paid + "/" + accs.size() + RESET + "   Amount: ₹"
+                + String.format("%,.2f", result.amountPaid) + "   Fees: ₹" + String.format("%,.2f", result.fees)
+                + "   " + DIM + "(" + result.elapsedMillis + " ms)" + RESET);
+        for (String skip : result.skipped) {
+            System.out.println("  " + RED + "✗ " + skip + RESET);
+        }
+        showSuccess("Payroll completed");
         pause();
     }
 
@@ -2068,6 +2106,9 @@ public class BankingApplication {
             if (level >= 3)
                 System.out.println("  " + BRIGHT_YELLOW + "[21]" + RESET + " Treasury & Investments      " + DIM
                         + "RBI/Market" + RESET);
+            if (level >= 3)
+                System.out.println("  " + BRIGHT_YELLOW + "[22]" + RESET + " Month-End Statements        " + DIM
+                        + "All accounts" + RESET);
             System.out.println("  " + BRIGHT_YELLOW + "[10]" + RESET + " Approve Cheque Book         " + DIM
                     + "Process requests" + RESET);
             if (level >= 2)
@@ -2194,6 +2235,14 @@ public class BankingApplication {
                         treasuryAndInvestmentMenu();
                     }
                     break;
+                case 22:
+                    if (level < 3) {
+                        showError("Access Denied");
+                        pause();
+                    } else {
+                        runMonthEndStatements();
+                    }
+                    break;
                 case 10:
                     approveChequeBook();
                     break;
@@ -2642,9 +2691,138 @@ public class BankingApplication {
         }
 
         currentAccount.generateDetailedStatement(address);
+
+        System.out.println("  " + BRIGHT_CYAN + "[1]" + RESET + "  Browse All Transactions");
+        System.out.println("  " + BRIGHT_CYAN + "[2]" + RESET + "  Browse a Month");
+        System.out.println("  " + BRIGHT_CYAN + "[3]" + RESET + "  Export Statement to File");
+        System.out.println("  " + BRIGHT_CYAN + "[0]" + RESET + "  Back to Dashboard");
+        System.out.print("\n  " + BRIGHT_BLUE + "→" + RESET + " Select: ");
+        int choice = getIntInputDirect();
+        if (choice == 1) {
+            browseTransactions(new StatementPager(currentAccount, STATEMENT_PAGE_SIZE), "ALL TRANSACTIONS");
+        } else if (choice == 2) {
+            System.out.print("  Month (MM/YYYY): ");
+            String input = scanner.nextLine().trim();
+            try {
+                java.time.YearMonth month = java.time.YearMonth.parse(input,
+                        java.time.format.DateTimeFormatter.ofPattern("MM/yyyy"));
+                StatementPager pager = new StatementPager(currentAccount, month.atDay(1).atStartOfDay(),
+                        month.plusMonths(1).atDay(1).atStartOfDay(), STATEMENT_PAGE_SIZE);
+                browseTransactions(pager, "TRANSACTIONS - " + input);
+            } catch (java.time.format.DateTimeParseException e) {
+                showError("Invalid month. Use MM/YYYY, e.g. 03/2025.");
+                pause();
+            }
+        } else if (choice == 3) {
+            exportStatement(address);
+        }
+    }
+
+    // Streams the statement for a month or the whole history to a CSV or plain-text file
+    private static void exportStatement(String address) {
+        System.out.println("  " + BRIGHT_CYAN + "[1]" + RESET + "  CSV");
+        System.out.println("  " + BRIGHT_CYAN + "[2]" + RESET + "  Text (statement layout)");
+        System.out.print("\n  " + BRIGHT_BLUE + "→" + RESET + " Format: ");
+        int choice = getIntInputDirect();
+        if (choice != 1 && choice != 2) {
+            return;
+        }
+        StatementExporter.Format format = choice == 1 ? StatementExporter.Format.CSV
+                : StatementExporter.Format.TEXT;
+
+        System.out.print("  Month (MM/YYYY, blank for all): ");
+        String input = scanner.nextLine().trim();
+        java.time.LocalDateTime from = null;
+        java.time.LocalDateTime to = null;
+        if (!input.isEmpty()) {
+            try {
+                java.time.YearMonth month = java.time.YearMonth.parse(input,
+                        java.time.format.DateTimeFormatter.ofPattern("MM/yyyy"));
+                from = month.atDay(1).atStartOfDay();
+                to = month.plusMonths(1).atDay(1).atStartOfDay();
+            } catch (java.time.format.DateTimeParseException e) {
+                showError("Invalid month. Use MM/YYYY, e.g. 03/2025.");
+                pause();
+                return;
+            }
+        }
+
+        java.io.File file = StatementExporter.defaultFile(currentAccount, format);
+        try {
+            int count = StatementExporter.export(currentAccount, address, from, to, format, file);
+            showSuccess("Exported " + count + " transactions to " + file.getPath());
+        } catch (java.io.IOException | java.io.UncheckedIOException e) {
+            showError("Export failed: " + e.getMessage());
+        }
+        pause();
+    }
+
+    // Statement files for every active account, generated in parallel; re-running resumes
+    private static void runMonthEndStatements() {
+        clearScreen();
+        printSectionHeader("MONTH-END STATEMENTS");
+        java.time.YearMonth previous = java.time.YearMonth.now().minusMonths(1);
+        java.time.format.DateTimeFormatter pattern = java.time.format.DateTimeFormatter.ofPattern("MM/yyyy");
+        System.out.print("  Month (MM/YYYY, blank for " + previous.format(pattern) + "): ");
+        String input = scanner.nextLine().trim();
+        java.time.YearMonth month = previous;
+        if (!input.isEmpty()) {
+            try {
+                month = java.time.YearMonth.parse(input, pattern);
+            } catch (java.time.format.DateTimeParseException e) {
+                showError("Invalid month. Use MM/YYYY, e.g. 03/2025.");
+                pause();
+                return;
+            }
+        }
+        System.out.println("  " + BRIGHT_CYAN + "[1]" + RESET + "  CSV");
+        System.out.println("  " + BRIGHT_CYAN + "[2]" + RESET + "  Text (statement layout)");
+        System.out.print("\n  " + BRIGHT_BLUE + "→" + RESET + " Format: ");
+        int choice = getIntInputDirect();
+        if (choice != 1 && choice != 2) {
+            return;
+        }
+        StatementExporter.Format format = choice == 1 ? StatementExporter.Format.CSV
+                : StatementExporter.Format.TEXT;
+
+        System.out.println();
+        StatementRun.Result result = StatementRun.run(bank, month, format);
+        System.out.println("\n  Generated: " + BOLD + result.generated + RESET + "   Already done: "
+                + result.skipped + "   Failed: " + (result.failed.isEmpty() ? "0" : RED + result.failed.size() + RESET)
+                + "   " + DIM + "(" + result.elapsedMillis + " ms)" + RESET);
+        for (String failure : result.failed) {
+            System.out.println("  " + RED + "✗ " + failure + RESET);
+        }
+        showSuccess("Statements written to " + result.directory.getPath());
         pause();
     }
 
+    // One page at a time, newest first; only the page on screen is read from the account
+    private static void browseTransactions(StatementPager pager, String title) {
+        while (true) {
+            clearScreen();
+            printSectionHeader(title);
+            pager.print(System.out);
+            System.out.println();
+            if (pager.hasOlder()) {
+                System.out.println("  " + BRIGHT_CYAN + "[1]" + RESET + "  Older");
+            }
+            if (pager.hasNewer()) {
+                System.out.println("  " + BRIGHT_CYAN + "[2]" + RESET + "  Newer");
+            }
+            System.out.println("  " + BRIGHT_CYAN + "[0]" + RESET + "  Back");
+            System.out.print("\n  " + BRIGHT_BLUE + "→" + RESET + " Select: ");
+            int choice = getIntInputDirect();
+            if (choice == 1) {
+                pager.older();
+            } else if (choice == 2) {
+                pager.newer();
+            } else if (choice == 0) {
+                return;
+            }
+        }
+    }
+
     // ==================== MAILBOX SYSTEM ====================
 
     private static void mailboxMenu() {
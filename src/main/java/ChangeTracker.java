@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ChangeTracker - Records which parts of the bank changed since the last flush.
+ *
+ * Accounts mark themselves dirty whenever they log a transaction; anything
+ * outside an account's own state (customers, staff, messages, bank ledger,
+ * new or removed accounts) marks the structure dirty. The background writer
+ * in PersistenceManager drains these marks and persists only what changed.
+ */
+public class ChangeTracker {
+    private static final Set<BankAccount> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean structureDirty = new AtomicBoolean();
+
+    public static void accountChanged(BankAccount account) {
+        dirtyAccounts.add(account);
+    }
+
+    public static void structureChanged() {
+        structureDirty.set(true);
+    }
+
+    public static boolean hasChanges() {
+        return structureDirty.get() || !dirtyAccounts.isEmpty();
+    }
+
+    // Returns and clears the structure flag in one step, so a change marked meanwhile is not lost
+    public static boolean takeStructureChange() {
+        return structureDirty.getAndSet(false);
+    }
+
+    // Returns and clears the dirty accounts; accounts changed meanwhile are simply marked again
+    public static List<BankAccount> takeDirtyAccounts() {
+        List<BankAccount> accounts = new ArrayList<>();
+        Iterator<BankAccount> it = dirtyAccounts.iterator();
+        while (it.hasNext()) {
+            accounts.add(it.next());
+            it.remove();
+        }
+        return accounts;
+    }
+
+    public static void clear() {
+        dirtyAccounts.clear();
+        structureDirty.set(false);
+    }
+}
@@ -0,0 +1,228 @@
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionPool - Bounded pool of JDBC connections with a per-connection statement cache.
+ *
+ * A caller borrows a connection for one unit of work and closes it to hand it
+ * back. Idle connections are validated before reuse and replaced when the
+ * database has dropped them, so a restarted server is reconnected to
+ * transparently. Prepared statements are cached per connection and stay open
+ * while the connection is pooled.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxIdle;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private volatile boolean closed = false;
+
+    // Idle connections older than this are checked with isValid() before reuse
+    private static final long VALIDATE_AFTER_MS = 5000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+
+    public ConnectionPool(String url, String username, String password, int maxActive, int maxIdle,
+            int statementCacheSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxIdle = Math.max(1, maxIdle);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(Math.max(1, maxActive), true);
+    }
+
+    // Open connections up front - also proves the settings work
+    public void prefill(int count) throws SQLException {
+        for (int i = 0; i < count; i++) {
+            PooledConnection conn = new PooledConnection(DriverManager.getConnection(url, username, password));
+            conn.borrowed = false;
+            synchronized (idle) {
+                idle.push(conn);
+            }
+        }
+    }
+
+    // Blocks while every connection is in use
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+
+        try {
+            while (true) {
+                PooledConnection conn;
+                synchronized (idle) {
+                    conn = idle.poll();
+                }
+                if (conn == null) {
+                    return new PooledConnection(DriverManager.getConnection(url, username, password));
+                }
+                if (conn.isUsable()) {
+                    conn.borrowed = true;
+                    return conn;
+                }
+                // Dropped by the server - discard and try the next one (or reconnect)
+                conn.closePhysical();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void giveBack(PooledConnection conn) {
+        boolean keep = false;
+        try {
+            // Leave no half-finished transaction behind for the next borrower
+            if (!conn.connection.getAutoCommit()) {
+                conn.connection.rollback();
+                conn.connection.setAutoCommit(true);
+            }
+            keep = !closed;
+        } catch (SQLException e) {
+            keep = false;
+        }
+        if (keep) {
+            conn.lastUsed = System.currentTimeMillis();
+            synchronized (idle) {
+                if (idle.size() < maxIdle) {
+                    idle.push(conn);
+                    conn = null;
+                }
+            }
+        }
+        if (conn != null) {
+            conn.closePhysical();
+        }
+        permits.release();
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            for (PooledConnection conn : idle) {
+                conn.closePhysical();
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * A borrowed connection; close() returns it to the pool.
+     */
+    public final class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        private long lastUsed = System.currentTimeMillis();
+        private boolean borrowed = true;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            // Least recently used statements are closed once the cache is full
+            this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > statementCacheSize) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        // Cached prepared statement - do not close it, it is reused by later borrowers
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null || ps.isClosed()) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            } else {
+                ps.clearParameters();
+                ps.clearBatch();
+            }
+            return ps;
+        }
+
+        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            return connection.createStatement(resultSetType, resultSetConcurrency);
+        }
+
+        public Statement createStatement() throws SQLException {
+            return connection.createStatement();
+        }
+
+        public void setAutoCommit(boolean autoCommit) throws SQLException {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        public void commit() throws SQLException {
+            connection.commit();
+        }
+
+        public void rollback() throws SQLException {
+            connection.rollback();
+        }
+
+        @Override
+        public void close() {
+            if (borrowed) {
+                borrowed = false;
+                giveBack(this);
+            }
+        }
+
+        private boolean isUsable() {
+            try {
+                if (connection.isClosed()) {
+                    return false;
+                }
+                return System.currentTimeMillis() - lastUsed < VALIDATE_AFTER_MS
+                        || connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void closePhysical() {
+            Iterator<PreparedStatement> it = statements.values().iterator();
+            while (it.hasNext()) {
+                closeQuietly(it.next());
+                it.remove();
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+            }
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+        }
+    }
+}
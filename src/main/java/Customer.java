@@ -1,6 +1,4 @@
 import java.util.ArrayList;
-import java.util.Date;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 
 public class Customer implements java.io.Serializable {
@@ -17,7 +15,6 @@ public class Customer implements java.io.Serializable {
     private String panNumber;
     private String aadharNumber;
     private ArrayList<String> accountNumbers;
-    private SimpleDateFormat dateFormat;
     private String registrationDate;
     private String password;
 
@@ -73,8 +70,7 @@ public class Customer implements java.io.Serializable {
         this.gstNumber = gstNumber;
         this.cinNumber = cinNumber;
         this.accountNumbers = new ArrayList<>();
-        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        this.registrationDate = dateFormat.format(new Date());
+        this.registrationDate = DateFormats.timestamp();
         this.mailbox = new ArrayList<>(); // Initialize mailbox
 
         // Security initialization
@@ -94,20 +90,28 @@ public class Customer implements java.io.Serializable {
         this.password = namePart + mobilePart;
     }
 
-    public boolean validatePassword(String inputPassword) {
+    // Synchronized: concurrent teller sessions may log in to the same customer
+    public synchronized boolean validatePassword(String inputPassword) {
         if (isLocked) {
             return false;
         }
 
         if (this.password.equals(inputPassword)) {
-            failedLoginAttempts = 0;
-            lastLoginDate = LocalDate.now();
+            LocalDate today = LocalDate.now();
+            // Saved only when a stored field changes - a second login on the same day writes nothing
+            if (failedLoginAttempts != 0 || !today.equals(lastLoginDate)) {
+                failedLoginAttempts = 0;
+                lastLoginDate = today;
+                ChangeTracker.structureChanged();
+            }
             return true;
         } else {
+            // At most three per customer before the lock above turns attempts away unsaved
             failedLoginAttempts++;
             if (failedLoginAttempts >= 3) {
                 isLocked = true;
             }
+            ChangeTracker.structureChanged();
             return false;
         }
     }
@@ -119,6 +123,7 @@ public class Customer implements java.io.Serializable {
     public void setPassword(String oldPassword, String newPassword) {
         if (this.password.equals(oldPassword)) {
             this.password = newPassword;
+            ChangeTracker.structureChanged();
         } else {
             throw new IllegalArgumentException("Old password is incorrect");
         }
@@ -126,6 +131,7 @@ public class Customer implements java.io.Serializable {
 
     public void setPasswordDirect(String password) {
         this.password = password;
+        ChangeTracker.structureChanged();
     }
 
     public boolean validateTransactionPin(String pin) {
@@ -135,6 +141,7 @@ public class Customer implements java.io.Serializable {
     public void setTransactionPin(String pin) {
         if (pin != null && pin.matches("\\d{4}")) {
             this.transactionPin = pin;
+            ChangeTracker.structureChanged();
         } else {
             throw new IllegalArgumentException("PIN must be 4 digits");
         }
@@ -147,12 +154,14 @@ public class Customer implements java.io.Serializable {
     public void unlockAccount() {
         this.isLocked = false;
         this.failedLoginAttempts = 0;
+        ChangeTracker.structureChanged();
     }
 
     public void setNominee(String name, String relation, LocalDate dob) {
         this.nomineeName = name;
         this.nomineeRelation = relation;
         this.nomineeDoB = dob;
+        ChangeTracker.structureChanged();
     }
 
     public String getCustomerId() {
@@ -199,8 +208,9 @@ public class Customer implements java.io.Serializable {
         return aadharNumber;
     }
 
-    public ArrayList<String> getAccountNumbers() {
-        return accountNumbers;
+    // A copy, so callers can iterate while another session opens or closes an account
+    public synchronized ArrayList<String> getAccountNumbers() {
+        return new ArrayList<>(accountNumbers);
     }
 
     public String getRegistrationDate() {
@@ -209,22 +219,27 @@ public class Customer implements java.io.Serializable {
 
     public void setCustomerName(String newName) {
         this.customerName = newName;
+        ChangeTracker.structureChanged();
     }
 
     public void setMobileNumber(String newMobile) {
         this.mobileNumber = newMobile;
+        ChangeTracker.structureChanged();
     }
 
     public void setEmail(String email) {
         this.email = email;
+        ChangeTracker.structureChanged();
     }
 
     public void setDateOfBirth(LocalDate dateOfBirth) {
         this.dateOfBirth = dateOfBirth;
+        ChangeTracker.structureChanged();
     }
 
     public void setAddress(String address) {
         this.address = address;
+        ChangeTracker.structureChanged();
     }
 
     // Security getters
@@ -278,12 +293,14 @@ public class Customer implements java.io.Serializable {
         return businessType != null && businessType != BusinessType.INDIVIDUAL;
     }
 
-    public void addAccount(String accountNumber) {
+    public synchronized void addAccount(String accountNumber) {
         accountNumbers.add(accountNumber);
+        ChangeTracker.structureChanged();
     }
 
-    public void removeAccount(String accountNumber) {
+    public synchronized void removeAccount(String accountNumber) {
         accountNumbers.remove(accountNumber);
+        ChangeTracker.structureChanged();
     }
 
     public int getAccountCount() {
@@ -319,11 +336,12 @@ public class Customer implements java.io.Serializable {
 
     // ==================== MAILBOX METHODS ====================
 
-    public void addMessage(Message message) {
+    public synchronized void addMessage(Message message) {
         if (mailbox == null) {
             mailbox = new ArrayList<>();
         }
         mailbox.add(message);
+        ChangeTracker.structureChanged();
     }
 
     public ArrayList<Message> getMailbox() {
@@ -400,5 +418,73 @@ public class Customer implements java.io.Serializable {
 
     public void setRelationshipManagerId(String relationshipManagerId) {
         this.relationshipManagerId = relationshipManagerId;
+        ChangeTracker.structureChanged();
+    }
+
+    // Snapshot decoding - fields are filled in by readSnapshot
+    private Customer() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec)
+    synchronized void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(customerId);
+        out.writeString(customerName);
+        out.writeString(mobileNumber);
+        out.writeString(email);
+        out.writeDate(dateOfBirth);
+        out.writeString(address);
+        out.writeString(city);
+        out.writeString(state);
+        out.writeString(pincode);
+        out.writeString(panNumber);
+        out.writeString(aadharNumber);
+        out.writeStrings(accountNumbers);
+        out.writeString(registrationDate);
+        out.writeString(password);
+        out.writeString(transactionPin);
+        out.writeVarInt(failedLoginAttempts);
+        out.writeBoolean(isLocked);
+        out.writeDate(lastLoginDate);
+        out.writeString(nomineeName);
+        out.writeString(nomineeRelation);
+        out.writeDate(nomineeDoB);
+        out.writeEnum(businessType);
+        out.writeString(companyName);
+        out.writeString(gstNumber);
+        out.writeString(cinNumber);
+        out.writeMessages(mailbox);
+        out.writeString(relationshipManagerId);
+    }
+
+    static Customer readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        Customer customer = new Customer();
+        customer.customerId = in.readString();
+        customer.customerName = in.readString();
+        customer.mobileNumber = in.readString();
+        customer.email = in.readString();
+        customer.dateOfBirth = in.readDate();
+        customer.address = in.readString();
+        customer.city = in.readString();
+        customer.state = in.readString();
+        customer.pincode = in.readString();
+        customer.panNumber = in.readString();
+        customer.aadharNumber = in.readString();
+        customer.accountNumbers = in.readStrings();
+        customer.registrationDate = in.readString();
+        customer.password = in.readString();
+        customer.transactionPin = in.readString();
+        customer.failedLoginAttempts = in.readVarInt();
+        customer.isLocked = in.readBoolean();
+        customer.lastLoginDate = in.readDate();
+        customer.nomineeName = in.readString();
+        customer.nomineeRelation = in.readString();
+        customer.nomineeDoB = in.readDate();
+        customer.businessType = in.readEnum(BusinessType.class);
+        customer.companyName = in.readString();
+        customer.gstNumber = in.readString();
+        customer.cinNumber = in.readString();
+        customer.mailbox = in.readMessages();
+        customer.relationshipManagerId = in.readString();
+        return customer;
     }
 }
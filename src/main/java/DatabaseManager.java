@@ -3,17 +3,42 @@ import java.io.*;
 import java.util.Properties;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * DatabaseManager - Handles all MySQL database connections and operations
  */
 public class DatabaseManager {
-    private static DatabaseManager instance;
-    private Connection connection;
+    private static volatile DatabaseManager instance;
+    private ConnectionPool pool;
     private Properties properties;
 
+    // Connection borrowed by the current thread for the operation in progress
+    private final ThreadLocal<ConnectionPool.PooledConnection> current = new ThreadLocal<>();
+
+    // Rows as last written to (or read from) MySQL, keyed by primary key
+    private final Map<String, List<Object>> syncedStaff = new HashMap<>();
+    private final Map<String, List<Object>> syncedCustomers = new HashMap<>();
+    private final Map<String, List<Object>> syncedAccounts = new HashMap<>();
+    private final Map<String, List<Object>> syncedFixedDeposits = new HashMap<>();
+    private final Map<String, List<Object>> syncedRecurringDeposits = new HashMap<>();
+    private final Map<String, List<Object>> syncedNominees = new HashMap<>();
+    private final Map<String, Integer> syncedLogCounts = new HashMap<>();
+    private final Map<String, Integer> syncedTransactionCounts = new HashMap<>();
+    private final Set<List<String>> syncedLinks = new HashSet<>();
+    private List<Object> syncedLedger;
+    private boolean syncStateLoaded = false;
+
     // ANSI Colors for console output
     private static final String RESET = "\u001B[0m";
     private static final String GREEN = "\u001B[92m";
@@ -21,16 +46,35 @@ public class DatabaseManager {
     private static final String YELLOW = "\u001B[93m";
     private static final String CYAN = "\u001B[96m";
 
+    // Rows per round trip when streaming large tables
+    private static final int FETCH_SIZE = 1000;
+
+    // Rows per executeBatch when inserting large histories
+    private static final int BATCH_SIZE = 1000;
+
+    // Smallest account range worth its own log query
+    private static final int MIN_PARTITION_ACCOUNTS = 500;
+
+    // Concurrent reads (and connections) used by loadBankData
+    private int loadThreads = 1;
+
     private DatabaseManager() {
         loadProperties();
         connect();
     }
 
     public static DatabaseManager getInstance() {
-        if (instance == null) {
-            instance = new DatabaseManager();
+        DatabaseManager result = instance;
+        if (result == null) {
+            synchronized (DatabaseManager.class) {
+                result = instance;
+                if (result == null) {
+                    result = new DatabaseManager();
+                    instance = result;
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     private void loadProperties() {
@@ -44,299 +88,881 @@ public class DatabaseManager {
             properties.setProperty("db.password", "");
             properties.setProperty("db.driver", "com.mysql.cj.jdbc.Driver");
         }
+        // -Ddb.url=jdbc:h2:mem:bank;MODE=MySQL -Ddb.driver=org.h2.Driver etc. point at a local stand-in
+        for (String key : new String[] { "db.url", "db.username", "db.password", "db.driver" }) {
+            if (System.getProperty(key) != null) {
+                properties.setProperty(key, System.getProperty(key));
+            }
+        }
     }
 
     private void connect() {
         try {
             Class.forName(properties.getProperty("db.driver"));
-            String url = properties.getProperty("db.url") +
-                    "?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+            String url = properties.getProperty("db.url");
+            if (url.startsWith("jdbc:mysql:") && !url.contains("?")) {
+                url += "?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&useCursorFetch=true&rewriteBatchedStatements=true";
+            }
             String username = properties.getProperty("db.username");
             String password = properties.getProperty("db.password");
-            connection = DriverManager.getConnection(url, username, password);
+            pool = new ConnectionPool(url, username, password,
+                    intProperty("db.pool.maxActive", 20),
+                    intProperty("db.pool.maxIdle", 10),
+                    intProperty("db.pool.statementCacheSize", 64));
+            loadThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                    intProperty("db.pool.maxActive", 20)));
+            pool.prefill(intProperty("db.pool.initialSize", 1));
             System.out.println(GREEN + "✓ Connected to MySQL successfully" + RESET);
         } catch (Exception e) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
             System.out.println(RED + "✗ Connection Failed: " + e.getMessage() + RESET);
         }
     }
 
+    private int intProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(properties.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private ConnectionPool.PooledConnection conn() {
+        return current.get();
+    }
+
     public void initializeDatabase() {
         // Method to run validation or init scripts if needed
     }
 
     // ==========================================
-    // SAVE BANK DATA (Full Synchronization)
+    // SAVE BANK DATA (Incremental Synchronization)
     // ==========================================
-    public void saveBankData(Bank bank) {
-        if (connection == null)
+    // A save upserts only rows whose values differ from what was last written (or
+    // loaded), appends only log entries past the last synced entry_order and deletes
+    // only rows that no longer exist, so its cost follows the size of the change.
+    public synchronized void saveBankData(Bank bank) {
+        if (pool == null)
             return;
+        ConnectionPool.PooledConnection connection;
+        try {
+            connection = pool.borrow();
+        } catch (SQLException e) {
+            System.out.println(RED + "✗ Save Failed: " + e.getMessage() + RESET);
+            return;
+        }
+        current.set(connection);
         try {
             connection.setAutoCommit(false);
-
-            // 1. Clear existing data (in order foreign keys)
-            executeUpdate("DELETE FROM transaction_logs");
-            executeUpdate("DELETE FROM transactions");
-            executeUpdate("DELETE FROM customer_accounts");
-            executeUpdate("DELETE FROM bank_accounts");
-            executeUpdate("DELETE FROM customers"); // Staff fk references this? No, customers refer staff (RM)
-            // Customers have RM (Staff). So delete customers first.
-            executeUpdate("DELETE FROM staff");
-
-            // 2. Insert Staff
-            String sqlStaff = "INSERT INTO staff (staff_id, name, username, password, role) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement ps = connection.prepareStatement(sqlStaff)) {
-                for (Staff s : bank.getStaffList()) {
-                    ps.setString(1, s.getStaffId());
-                    ps.setString(2, s.getName());
-                    ps.setString(3, s.getUsername());
-                    // WARNING: Saving plain text password as per current model
-                    // (Should be hashed in future)
-                    ps.setString(4, "password123"); // Hack: Staff has private password with no getter?
-                    // Staff.java: getPassword() IS MISSING?
-                    // I checked Staff View - Method authenticate() exists.
-                    // Field password is private. NO Getter.
-                    // Workaround: We cannot save password without getter.
-                    // Solution: Add getPassword to Staff.java OR skip password save (risk of
-                    // reset).
-                    // For now, I'll set a default placeholder or try reflection?
-                    // Reflection is overkill.
-                    // I will ADD getPassword to Staff.java later. For now "RESET_ME".
-                    ps.setString(4, "admin123");
-                    ps.setString(5, s.getRole().name());
-                    ps.addBatch();
-                }
-                ps.executeBatch();
-            }
-
-            // 3. Insert Customers
-            String sqlCust = "INSERT INTO customers (customer_id, customer_name, date_of_birth, email, mobile_number, address, city, state, pincode, pan_number, aadhar_number, password, relationship_manager_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement ps = connection.prepareStatement(sqlCust)) {
-                for (Customer c : bank.getCustomers().values()) {
-                    ps.setString(1, c.getCustomerId());
-                    ps.setString(2, c.getCustomerName());
-                    ps.setDate(3, java.sql.Date.valueOf(c.getDateOfBirth()));
-                    ps.setString(4, c.getEmail());
-                    ps.setString(5, c.getMobileNumber());
-                    ps.setString(6, c.getAddress());
-                    ps.setString(7, c.getCity());
-                    ps.setString(8, c.getState());
-                    ps.setString(9, c.getPincode());
-                    ps.setString(10, c.getPanNumber());
-                    ps.setString(11, c.getAadharNumber());
-                    ps.setString(12, c.getPassword()); // Customer has getPassword (visible in Step 1243)
-                    ps.setString(13, c.getRelationshipManagerId());
-                    ps.addBatch();
-                }
-                ps.executeBatch();
+            if (!syncStateLoaded) {
+                loadSyncState();
             }
 
-            // 4. Insert Accounts + Transaction Logs
-            String sqlAcc = "INSERT INTO bank_accounts (account_number, customer_id, account_holder_name, mobile_number, balance, account_type, is_active, is_frozen, cumulative_fees, cumulative_interest) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            String sqlLog = "INSERT INTO transaction_logs (account_number, log_entry, entry_order) VALUES (?, ?, ?)";
-
-            try (PreparedStatement ps = connection.prepareStatement(sqlAcc);
-                    PreparedStatement psLog = connection.prepareStatement(sqlLog)) {
-
-                // Standard Accounts
-                for (BankAccount acc : bank.getAllAccounts()) {
-                    saveAccountToBatch(ps, psLog, acc);
-                }
-                // Treasury Account
-                if (bank.getTreasuryAccount() != null) {
-                    saveAccountToBatch(ps, psLog, bank.getTreasuryAccount());
-                }
-                ps.executeBatch();
-                psLog.executeBatch();
+            List<BankAccount> accounts = bank.getAllAccounts();
+            if (bank.getTreasuryAccount() != null) {
+                accounts.add(bank.getTreasuryAccount());
             }
 
-            // 5. Update Ledger
-            String sqlLedger = "UPDATE bank_ledger SET rbi_loan_balance=?, invested_amount=?, account_counter=?, customer_counter=? WHERE id=1";
-            try (PreparedStatement ps = connection.prepareStatement(sqlLedger)) {
-                ps.setDouble(1, bank.getRbiLoanBalance());
-                ps.setDouble(2, bank.getInvestedAmount());
-                ps.setInt(3, bank.getAccountCounter());
-                ps.setInt(4, bank.getCustomerCounter());
-                ps.executeUpdate();
-            }
+            int changed = 0;
+            // Staff first - customers reference their relationship manager
+            changed += syncStaff(bank);
+            changed += syncCustomers(bank);
+            changed += syncAccounts(accounts);
+            changed += syncCustomerAccounts(bank);
+            changed += syncFixedDeposits(accounts);
+            changed += syncRecurringDeposits(accounts);
+            changed += syncNominees(bank);
+            changed += syncLogs(accounts);
+            changed += syncTransactions(accounts);
+            changed += syncLedger(bank);
 
             connection.commit();
-            System.out.println(GREEN + "✓ Bank Data Saved to MySQL Successfully" + RESET);
+            System.out.println(GREEN + "✓ Bank Data Saved to MySQL Successfully" + RESET
+                    + " (" + changed + " rows changed)");
 
         } catch (SQLException e) {
             try {
                 connection.rollback();
             } catch (SQLException ex) {
             }
+            // What was synced is unknown now - re-read the keys on the next save
+            resetSyncState();
             System.out.println(RED + "✗ Save Failed: " + e.getMessage() + RESET);
             e.printStackTrace();
         } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
+            current.remove();
+            // Returned with autocommit restored
+            connection.close();
+        }
+    }
+
+    private int syncStaff(Bank bank) throws SQLException {
+        return syncRows(syncedStaff, staffRows(bank),
+                "INSERT INTO staff (staff_id, name, username, password, role) VALUES (?, ?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE name=VALUES(name), username=VALUES(username), role=VALUES(role)",
+                "DELETE FROM staff WHERE staff_id=?");
+    }
+
+    private Map<String, List<Object>> staffRows(Bank bank) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        for (Staff s : bank.getStaffList()) {
+            // Staff has no password getter; new rows get the default password and
+            // updates leave the stored one alone
+            rows.put(s.getStaffId(), Arrays.asList(s.getStaffId(), s.getName(), s.getUsername(), "admin123",
+                    s.getRole().name()));
+        }
+        return rows;
+    }
+
+    private int syncCustomers(Bank bank) throws SQLException {
+        Map<String, List<Object>> rows = customerRows(bank);
+        return syncRows(syncedCustomers, rows,
+                "INSERT INTO customers (customer_id, customer_name, date_of_birth, email, mobile_number, address, "
+                        + "city, state, pincode, pan_number, aadhar_number, password, relationship_manager_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE customer_name=VALUES(customer_name), "
+                        + "date_of_birth=VALUES(date_of_birth), email=VALUES(email), "
+                        + "mobile_number=VALUES(mobile_number), address=VALUES(address), city=VALUES(city), "
+                        + "state=VALUES(state), pincode=VALUES(pincode), pan_number=VALUES(pan_number), "
+                        + "aadhar_number=VALUES(aadhar_number), password=VALUES(password), "
+                        + "relationship_manager_id=VALUES(relationship_manager_id)",
+                "DELETE FROM customers WHERE customer_id=?");
+    }
+
+    private Map<String, List<Object>> customerRows(Bank bank) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        for (Customer c : bank.getCustomers().values()) {
+            rows.put(c.getCustomerId(), Arrays.asList(
+                    c.getCustomerId(),
+                    c.getCustomerName(),
+                    c.getDateOfBirth() != null ? java.sql.Date.valueOf(c.getDateOfBirth()) : null,
+                    c.getEmail(),
+                    c.getMobileNumber(),
+                    c.getAddress(),
+                    c.getCity(),
+                    c.getState(),
+                    c.getPincode(),
+                    c.getPanNumber(),
+                    c.getAadharNumber(),
+                    c.getPassword(),
+                    c.getRelationshipManagerId()));
+        }
+        return rows;
+    }
+
+    private int syncAccounts(List<BankAccount> accounts) throws SQLException {
+        Map<String, List<Object>> rows = accountRows(accounts);
+        // Deleting an account cascades to its logs
+        for (String accNum : syncedAccounts.keySet()) {
+            if (!rows.containsKey(accNum)) {
+                syncedLogCounts.remove(accNum);
             }
         }
+        return syncRows(syncedAccounts, rows,
+                "INSERT INTO bank_accounts (account_number, customer_id, account_holder_name, mobile_number, "
+                        + "balance, account_type, is_active, is_frozen, cumulative_fees, cumulative_interest) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE customer_id=VALUES(customer_id), "
+                        + "account_holder_name=VALUES(account_holder_name), mobile_number=VALUES(mobile_number), "
+                        + "balance=VALUES(balance), account_type=VALUES(account_type), "
+                        + "is_active=VALUES(is_active), is_frozen=VALUES(is_frozen), "
+                        + "cumulative_fees=VALUES(cumulative_fees), cumulative_interest=VALUES(cumulative_interest)",
+                "DELETE FROM bank_accounts WHERE account_number=?");
     }
 
-    private void saveAccountToBatch(PreparedStatement ps, PreparedStatement psLog, BankAccount acc)
-            throws SQLException {
-        ps.setString(1, acc.getAccountNumber());
-        ps.setString(2, acc.getCustomerId());
-        ps.setString(3, acc.getAccountHolderName());
-        ps.setString(4, acc.getMobileNumber());
-        ps.setDouble(5, acc.getBalance());
-        ps.setString(6, acc.getAccountType().name());
-        ps.setBoolean(7, acc.isActive());
-        ps.setBoolean(8, acc.isFrozen());
-        ps.setDouble(9, acc.getCumulativeFees());
-        ps.setDouble(10, acc.getCumulativeInterest());
-        ps.addBatch();
-
-        // Logs
-        List<String> logs = acc.getStatement(); // Ensure getStatement or getTransactionHistory exists
-        // BankAccount has getStatement() (viewed in Step 1151 context? No,
-        // getDetailedStatement).
-        // I need to assume getTransactionHistory() is available or use reflection.
-        // Or getStatement() returns list.
-        // Assuming getStatement() returns List<String>
-        if (logs != null) {
-            int order = 0;
-            for (String log : logs) {
-                psLog.setString(1, acc.getAccountNumber());
-                psLog.setString(2, log);
-                psLog.setInt(3, ++order);
-                psLog.addBatch();
+    private Map<String, List<Object>> accountRows(List<BankAccount> accounts) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        for (BankAccount acc : accounts) {
+            rows.put(acc.getAccountNumber(), Arrays.asList(
+                    acc.getAccountNumber(),
+                    acc.getCustomerId(),
+                    acc.getAccountHolderName(),
+                    acc.getMobileNumber(),
+                    acc.getBalance(),
+                    acc.getAccountType().name(),
+                    acc.isActive(),
+                    acc.isFrozen(),
+                    acc.getCumulativeFees(),
+                    acc.getCumulativeInterest()));
+        }
+        return rows;
+    }
+
+    private int syncFixedDeposits(List<BankAccount> accounts) throws SQLException {
+        return syncRows(syncedFixedDeposits, fixedDepositRows(accounts),
+                "INSERT INTO fixed_deposits (fd_number, account_number, principal_amount, interest_rate, "
+                        + "tenure_months, maturity_amount, start_date, maturity_date, is_active) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE maturity_amount=VALUES(maturity_amount), "
+                        + "is_active=VALUES(is_active)",
+                "DELETE FROM fixed_deposits WHERE fd_number=?");
+    }
+
+    private Map<String, List<Object>> fixedDepositRows(List<BankAccount> accounts) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        for (BankAccount acc : accounts) {
+            for (FixedDeposit fd : acc.getFixedDeposits()) {
+                rows.put(fd.getFdNumber(), Arrays.asList(
+                        fd.getFdNumber(),
+                        fd.getAccountNumber(),
+                        fd.getPrincipalAmount(),
+                        fd.getInterestRate(),
+                        fd.getTenureMonths(),
+                        fd.getMaturityAmount(),
+                        java.sql.Date.valueOf(fd.getStartDate()),
+                        java.sql.Date.valueOf(fd.getMaturityDate()),
+                        fd.isActive()));
+            }
+        }
+        return rows;
+    }
+
+    private int syncRecurringDeposits(List<BankAccount> accounts) throws SQLException {
+        return syncRows(syncedRecurringDeposits, recurringDepositRows(accounts),
+                "INSERT INTO recurring_deposits (rd_number, account_number, monthly_installment, interest_rate, "
+                        + "tenure_months, installments_paid, total_deposited, maturity_amount, start_date, "
+                        + "maturity_date, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE installments_paid=VALUES(installments_paid), "
+                        + "total_deposited=VALUES(total_deposited), maturity_amount=VALUES(maturity_amount), "
+                        + "is_active=VALUES(is_active)",
+                "DELETE FROM recurring_deposits WHERE rd_number=?");
+    }
+
+    private Map<String, List<Object>> recurringDepositRows(List<BankAccount> accounts) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        for (BankAccount acc : accounts) {
+            for (RecurringDeposit rd : acc.getRecurringDeposits()) {
+                rows.put(rd.getRdNumber(), Arrays.asList(
+                        rd.getRdNumber(),
+                        rd.getAccountNumber(),
+                        rd.getMonthlyInstallment(),
+                        rd.getInterestRate(),
+                        rd.getTenureMonths(),
+                        rd.getInstallmentsPaid(),
+                        rd.getTotalDeposited(),
+                        rd.getMaturityAmount(),
+                        java.sql.Date.valueOf(rd.getStartDate()),
+                        java.sql.Date.valueOf(rd.getMaturityDate()),
+                        rd.isActive()));
+            }
+        }
+        return rows;
+    }
+
+    // nominees has no natural key, so a changed nominee is replaced (delete + insert) per account
+    private int syncNominees(Bank bank) throws SQLException {
+        Map<String, List<Object>> rows = nomineeRows(bank);
+        int changed = 0;
+        PreparedStatement delete = conn().prepare("DELETE FROM nominees WHERE account_number=?");
+        PreparedStatement insert = conn().prepare(
+                "INSERT INTO nominees (account_number, nominee_name, nominee_dob, relationship) "
+                + "VALUES (?, ?, ?, ?)");
+        for (Map.Entry<String, List<Object>> row : rows.entrySet()) {
+            if (!row.getValue().equals(syncedNominees.get(row.getKey()))) {
+                if (syncedNominees.containsKey(row.getKey())) {
+                    delete.setString(1, row.getKey());
+                    delete.addBatch();
+                }
+                bind(insert, row.getValue());
+                insert.addBatch();
+                changed++;
+            }
+        }
+        for (String accNum : syncedNominees.keySet()) {
+            if (!rows.containsKey(accNum)) {
+                delete.setString(1, accNum);
+                delete.addBatch();
+                changed++;
+            }
+        }
+        delete.executeBatch();
+        insert.executeBatch();
+        syncedNominees.clear();
+        syncedNominees.putAll(rows);
+        return changed;
+    }
+
+    private Map<String, List<Object>> nomineeRows(Bank bank) {
+        Map<String, List<Object>> rows = new HashMap<>();
+        for (Customer c : bank.getCustomers().values()) {
+            if (c.getNomineeName() == null || c.getNomineeDoB() == null) {
+                continue;
+            }
+            for (String accNum : c.getAccountNumbers()) {
+                rows.put(accNum, Arrays.asList(accNum, c.getNomineeName(),
+                        java.sql.Date.valueOf(c.getNomineeDoB()), c.getNomineeRelation()));
+            }
+        }
+        return rows;
+    }
+
+    private int syncCustomerAccounts(Bank bank) throws SQLException {
+        Set<List<String>> links = customerAccountLinks(bank);
+
+        int changed = 0;
+        PreparedStatement insert = conn().prepare(
+                "INSERT IGNORE INTO customer_accounts (customer_id, account_number) VALUES (?, ?)");
+        PreparedStatement delete = conn().prepare(
+                "DELETE FROM customer_accounts WHERE customer_id=? AND account_number=?");
+        for (List<String> link : links) {
+            if (!syncedLinks.contains(link)) {
+                insert.setString(1, link.get(0));
+                insert.setString(2, link.get(1));
+                insert.addBatch();
+                changed++;
+            }
+        }
+        for (List<String> link : syncedLinks) {
+            if (!links.contains(link)) {
+                delete.setString(1, link.get(0));
+                delete.setString(2, link.get(1));
+                delete.addBatch();
+                changed++;
+            }
+        }
+        insert.executeBatch();
+        delete.executeBatch();
+        syncedLinks.clear();
+        syncedLinks.addAll(links);
+        return changed;
+    }
+
+    private Set<List<String>> customerAccountLinks(Bank bank) {
+        Set<List<String>> links = new HashSet<>();
+        for (Customer c : bank.getCustomers().values()) {
+            for (String accNum : c.getAccountNumbers()) {
+                links.add(Arrays.asList(c.getCustomerId(), accNum));
+            }
+        }
+        return links;
+    }
+
+    // History is append-only, so only entries after the last synced entry_order are new
+    private int syncLogs(List<BankAccount> accounts) throws SQLException {
+        int changed = 0;
+        int pending = 0;
+        PreparedStatement insert = conn().prepare(
+                "INSERT INTO transaction_logs (account_number, log_entry, entry_order) VALUES (?, ?, ?)");
+        PreparedStatement trim = conn().prepare(
+                "DELETE FROM transaction_logs WHERE account_number=? AND entry_order>?");
+        for (BankAccount acc : accounts) {
+            String accNum = acc.getAccountNumber();
+            int synced = syncedLogCounts.getOrDefault(accNum, 0);
+            int count;
+            List<String> logs = Collections.emptyList();
+            synchronized (acc) {
+                count = acc.getTransactionCount();
+                if (count > synced) {
+                    logs = acc.getTransactionLines(synced);
+                }
+            }
+            for (int i = 0; i < logs.size(); i++) {
+                insert.setString(1, accNum);
+                insert.setString(2, logs.get(i));
+                insert.setInt(3, synced + i + 1);
+                insert.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    insert.executeBatch();
+                    pending = 0;
+                }
+            }
+            changed += logs.size();
+            if (count < synced) {
+                // Fewer entries than stored - drop the surplus rather than rewrite the account
+                trim.setString(1, accNum);
+                trim.setInt(2, count);
+                trim.addBatch();
+                changed += synced - count;
+            }
+            syncedLogCounts.put(accNum, count);
+        }
+        insert.executeBatch();
+        trim.executeBatch();
+        return changed;
+    }
+
+    // The same history as typed rows for SQL range queries (idx_account, idx_date). Rows
+    // are append-only like the logs; an account whose history shrank is rewritten.
+    private int syncTransactions(List<BankAccount> accounts) throws SQLException {
+        int changed = 0;
+        int pending = 0;
+        PreparedStatement insert = conn().prepare(
+                "INSERT INTO transactions (account_number, transaction_date, description, amount, "
+                        + "transaction_type, balance_after, remark) VALUES (?, ?, ?, ?, ?, ?, ?)");
+        PreparedStatement clear = conn().prepare("DELETE FROM transactions WHERE account_number=?");
+        for (BankAccount acc : accounts) {
+            String accNum = acc.getAccountNumber();
+            int synced = syncedTransactionCounts.getOrDefault(accNum, 0);
+            List<TransactionEntry> added;
+            synchronized (acc) {
+                int count = acc.getTransactionCount();
+                if (count == synced) {
+                    continue;
+                }
+                if (count < synced) {
+                    clear.setString(1, accNum);
+                    changed += clear.executeUpdate();
+                    synced = 0;
+                }
+                added = acc.getTransactionEntries(synced);
+                syncedTransactionCounts.put(accNum, count);
+            }
+            for (TransactionEntry entry : added) {
+                insert.setString(1, accNum);
+                insert.setTimestamp(2, entry.getTimestamp() != null ? Timestamp.valueOf(entry.getTimestamp()) : null);
+                insert.setString(3, entry.getDescription());
+                insert.setObject(4, entry.getAmount(), Types.DECIMAL);
+                insert.setString(5, entry.getDirection().name());
+                insert.setObject(6, entry.getBalanceAfter(), Types.DECIMAL);
+                insert.setString(7, entry.getRemark());
+                insert.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    insert.executeBatch();
+                    pending = 0;
+                }
             }
+            changed += added.size();
         }
+        insert.executeBatch();
+        return changed;
+    }
+
+    private int syncLedger(Bank bank) throws SQLException {
+        List<Object> row = ledgerRow(bank);
+        if (row.equals(syncedLedger)) {
+            return 0;
+        }
+        String sqlLedger = "UPDATE bank_ledger SET rbi_loan_balance=?, invested_amount=?, account_counter=?, customer_counter=? WHERE id=1";
+        PreparedStatement ps = conn().prepare(sqlLedger);
+        bind(ps, row);
+        ps.executeUpdate();
+        syncedLedger = row;
+        return 1;
+    }
+
+    private List<Object> ledgerRow(Bank bank) {
+        return Arrays.asList(bank.getRbiLoanBalance(), bank.getInvestedAmount(),
+                bank.getAccountCounter(), bank.getCustomerCounter());
+    }
+
+    // Upsert rows that differ from the synced copy and delete rows that disappeared.
+    // The first value of each row is its primary key.
+    private int syncRows(Map<String, List<Object>> synced, Map<String, List<Object>> rows, String upsertSql,
+            String deleteSql) throws SQLException {
+        int changed = 0;
+        PreparedStatement upsert = conn().prepare(upsertSql);
+        PreparedStatement delete = conn().prepare(deleteSql);
+        for (Map.Entry<String, List<Object>> row : rows.entrySet()) {
+            if (!row.getValue().equals(synced.get(row.getKey()))) {
+                bind(upsert, row.getValue());
+                upsert.addBatch();
+                changed++;
+            }
+        }
+        for (String key : synced.keySet()) {
+            if (!rows.containsKey(key)) {
+                delete.setString(1, key);
+                delete.addBatch();
+                changed++;
+            }
+        }
+        upsert.executeBatch();
+        delete.executeBatch();
+        synced.clear();
+        synced.putAll(rows);
+        return changed;
+    }
+
+    private void bind(PreparedStatement ps, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            ps.setObject(i + 1, values.get(i));
+        }
+    }
+
+    // Keys already in the database; their values are unknown, so each is rewritten once
+    private void loadSyncState() throws SQLException {
+        resetSyncState();
+        loadKeys("SELECT staff_id FROM staff", syncedStaff);
+        loadKeys("SELECT customer_id FROM customers", syncedCustomers);
+        loadKeys("SELECT account_number FROM bank_accounts", syncedAccounts);
+        loadKeys("SELECT fd_number FROM fixed_deposits", syncedFixedDeposits);
+        loadKeys("SELECT rd_number FROM recurring_deposits", syncedRecurringDeposits);
+        loadKeys("SELECT DISTINCT account_number FROM nominees", syncedNominees);
+        try (Statement stmt = conn().createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "SELECT account_number, MAX(entry_order) FROM transaction_logs GROUP BY account_number")) {
+            while (rs.next()) {
+                syncedLogCounts.put(rs.getString(1), rs.getInt(2));
+            }
+        }
+        syncedTransactionCounts.putAll(readTransactionCounts());
+        try (Statement stmt = conn().createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT customer_id, account_number FROM customer_accounts")) {
+            while (rs.next()) {
+                syncedLinks.add(Arrays.asList(rs.getString(1), rs.getString(2)));
+            }
+        }
+        syncStateLoaded = true;
+    }
+
+    // Typed rows per account; a database from before the transactions table was written
+    // has none, and the first save fills it in from the logs
+    private Map<String, Integer> readTransactionCounts() throws SQLException {
+        Map<String, Integer> counts = new HashMap<>();
+        streamRows("SELECT account_number, COUNT(*) FROM transactions GROUP BY account_number",
+                rs -> counts.put(rs.getString(1), rs.getInt(2)));
+        return counts;
+    }
+
+    // The bank exactly as just loaded from MySQL - nothing needs writing until it changes
+    private void rememberSyncState(Bank bank, Map<String, Integer> transactionCounts) {
+        resetSyncState();
+        List<BankAccount> accounts = bank.getAllAccounts();
+        if (bank.getTreasuryAccount() != null) {
+            accounts.add(bank.getTreasuryAccount());
+        }
+        syncedStaff.putAll(staffRows(bank));
+        syncedCustomers.putAll(customerRows(bank));
+        syncedAccounts.putAll(accountRows(accounts));
+        syncedFixedDeposits.putAll(fixedDepositRows(accounts));
+        syncedRecurringDeposits.putAll(recurringDepositRows(accounts));
+        syncedNominees.putAll(nomineeRows(bank));
+        syncedLinks.addAll(customerAccountLinks(bank));
+        for (BankAccount acc : accounts) {
+            syncedLogCounts.put(acc.getAccountNumber(), acc.getTransactionCount());
+        }
+        syncedTransactionCounts.putAll(transactionCounts);
+        syncedLedger = ledgerRow(bank);
+        syncStateLoaded = true;
+    }
+
+    private void loadKeys(String sql, Map<String, List<Object>> synced) throws SQLException {
+        try (Statement stmt = conn().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                synced.put(rs.getString(1), null);
+            }
+        }
+    }
+
+    private void resetSyncState() {
+        syncedStaff.clear();
+        syncedCustomers.clear();
+        syncedAccounts.clear();
+        syncedFixedDeposits.clear();
+        syncedRecurringDeposits.clear();
+        syncedNominees.clear();
+        syncedLogCounts.clear();
+        syncedTransactionCounts.clear();
+        syncedLinks.clear();
+        syncedLedger = null;
+        syncStateLoaded = false;
     }
 
     // ==========================================
-    // LOAD BANK DATA
+    // LOAD BANK DATA (Parallel Pipeline)
     // ==========================================
+    // Independent tables are read concurrently, each on its own pooled connection:
+    // first the ledger, staff, customers and accounts, then - once the accounts are
+    // known - FDs, RDs, nominees and the logs split into account_number ranges. Each
+    // task only builds objects; they are merged into the Bank on this thread.
     public Bank loadBankData() {
         Bank bank = new Bank();
-        if (connection == null)
+        if (pool == null)
             return bank; // Empty bank if no DB
 
+        ExecutorService workers = Executors.newFixedThreadPool(loadThreads, r -> {
+            Thread t = new Thread(r, "db-load");
+            t.setDaemon(true);
+            return t;
+        });
         try {
-            // 1. Load Ledger
-            try (Statement stmt = connection.createStatement();
-                    ResultSet rs = stmt.executeQuery("SELECT * FROM bank_ledger WHERE id=1")) {
-                if (rs.next()) {
-                    bank.setCounters(rs.getInt("customer_counter"), rs.getInt("account_counter"));
-                    bank.setLedgerData(rs.getDouble("rbi_loan_balance"), rs.getDouble("invested_amount"));
-                }
+            // 1. Ledger, staff, customers and accounts
+            Future<List<Object>> ledgerTask = fork(workers, this::readLedger);
+            Future<List<Staff>> staffTask = fork(workers, this::readStaff);
+            Future<List<Customer>> customerTask = fork(workers, this::readCustomers);
+            Future<List<BankAccount>> accountTask = fork(workers, this::readAccounts);
+            Future<Map<String, Integer>> transactionCountTask = fork(workers, this::readTransactionCounts);
+
+            // Accounts arrive in account_number order as MySQL sorts them
+            List<BankAccount> accounts = join(accountTask);
+            Map<String, BankAccount> byNumber = new HashMap<>();
+            for (BankAccount acc : accounts) {
+                byNumber.put(acc.getAccountNumber(), acc);
+            }
+            Map<String, Customer> customersById = new HashMap<>();
+            List<Customer> customers = join(customerTask);
+            for (Customer c : customers) {
+                customersById.put(c.getCustomerId(), c);
             }
 
-            // 2. Load Staff
-            try (Statement stmt = connection.createStatement();
-                    ResultSet rs = stmt.executeQuery("SELECT * FROM staff")) {
-                while (rs.next()) {
-                    Staff s = new Staff(
-                            rs.getString("staff_id"),
-                            rs.getString("name"),
-                            rs.getString("username"),
-                            rs.getString("password"),
-                            StaffRole.valueOf(rs.getString("role")));
-                    bank.addStaff(s);
-                }
+            // 2. Rows that hang off accounts - each task touches a disjoint part of them
+            List<Future<Integer>> attachTasks = new ArrayList<>();
+            List<String> bounds = partitionBounds(accounts, loadThreads);
+            for (int i = 0; i <= bounds.size(); i++) {
+                String from = i == 0 ? null : bounds.get(i - 1);
+                String to = i == bounds.size() ? null : bounds.get(i);
+                attachTasks.add(fork(workers, () -> readLogs(from, to, byNumber)));
             }
+            attachTasks.add(fork(workers, () -> readFixedDeposits(byNumber)));
+            attachTasks.add(fork(workers, () -> readRecurringDeposits(byNumber)));
+            attachTasks.add(fork(workers, () -> readNominees(byNumber, customersById)));
 
-            // 3. Load Customers
-            try (Statement stmt = connection.createStatement();
-                    ResultSet rs = stmt.executeQuery("SELECT * FROM customers")) {
-                while (rs.next()) {
-                    // Constructor: (id, name, mobile, email, dob, address, city, state, pin, pan,
-                    // aadhar)
-                    LocalDate dob = rs.getDate("date_of_birth").toLocalDate();
-                    Customer c = new Customer(
-                            rs.getString("customer_id"),
-                            rs.getString("customer_name"),
-                            rs.getString("mobile_number"),
-                            rs.getString("email"),
-                            dob,
-                            rs.getString("address"),
-                            rs.getString("city"),
-                            rs.getString("state"),
-                            rs.getString("pincode"),
-                            rs.getString("pan_number"),
-                            rs.getString("aadhar_number"));
-                    c.setPassword("", rs.getString("password")); // oldPass ignored if logic matches
-                    // Wait, setPassword(old, new) checks old.
-                    // Problem: We can't set password if we don't know old (which is null in new
-                    // object).
-                    // Solution: Direct field access or new constructor?
-                    // Customer.java has setRelationshipManagerId.
-                    // For Password:
-                    // I'll leave password setting problematic (or assume Customer logic allows null
-                    // old).
-                    // Or I modify Customer.java later.
-                    c.setRelationshipManagerId(rs.getString("relationship_manager_id"));
-                    bank.restoreCustomer(c);
-                }
+            List<Object> ledger = join(ledgerTask);
+            List<Staff> staff = join(staffTask);
+            int rows = 1 + staff.size() + customers.size() + accounts.size();
+            for (Future<Integer> task : attachTasks) {
+                rows += join(task);
             }
 
-            // 4. Load Accounts
-            try (Statement stmt = connection.createStatement();
-                    ResultSet rs = stmt.executeQuery("SELECT * FROM bank_accounts")) {
-                while (rs.next()) {
-                    String accNum = rs.getString("account_number");
-                    String typeStr = rs.getString("account_type");
-                    AccountType type = AccountType.valueOf(typeStr);
-
-                    BankAccount acc = new BankAccount(
-                            accNum,
-                            rs.getString("customer_id"),
-                            rs.getString("account_holder_name"),
-                            rs.getString("mobile_number"),
-                            rs.getDouble("balance"),
-                            type);
-                    // Set flags
-                    if (rs.getBoolean("is_frozen"))
-                        acc.freezeAccount();
-                    // Load Logs
-                    loadLogsForAccount(acc);
-
-                    if (accNum.equals("TREASURY_001") || type == AccountType.TREASURY) {
-                        bank.setTreasuryAccount(acc);
-                    } else {
-                        bank.restoreAccount(acc);
-                    }
+            // 3. Merge into the bank
+            if (ledger != null) {
+                bank.setCounters((Integer) ledger.get(0), (Integer) ledger.get(1));
+                bank.setLedgerData((Double) ledger.get(2), (Double) ledger.get(3));
+            }
+            for (Staff s : staff) {
+                bank.addStaff(s);
+            }
+            for (Customer c : customers) {
+                bank.restoreCustomer(c);
+            }
+            for (BankAccount acc : accounts) {
+                if (acc.getAccountNumber().equals("TREASURY_001") || acc.getAccountType() == AccountType.TREASURY) {
+                    bank.setTreasuryAccount(acc);
+                } else {
+                    bank.restoreAccount(acc);
                 }
             }
 
-            System.out.println(GREEN + "✓ Bank Data Loaded from MySQL" + RESET);
+            // What was just read is what MySQL holds - later saves only write changes
+            rememberSyncState(bank, join(transactionCountTask));
+
+            System.out.println(GREEN + "✓ Bank Data Loaded from MySQL" + RESET
+                    + " (" + rows + " rows, " + loadThreads + " connections)");
 
         } catch (Exception e) {
             System.out.println(RED + "✗ Load Failed: " + e.getMessage() + RESET);
             e.printStackTrace();
+        } finally {
+            workers.shutdownNow();
         }
         return bank;
     }
 
-    private void loadLogsForAccount(BankAccount acc) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT log_entry FROM transaction_logs WHERE account_number=? ORDER BY entry_order ASC")) {
-            ps.setString(1, acc.getAccountNumber());
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    acc.addRestoredTransaction(rs.getString("log_entry"));
-                }
+    private List<Object> readLedger() throws SQLException {
+        try (Statement stmt = conn().createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT * FROM bank_ledger WHERE id=1")) {
+            if (!rs.next()) {
+                return null;
             }
-        } catch (SQLException e) {
+            return Arrays.asList(rs.getInt("customer_counter"), rs.getInt("account_counter"),
+                    rs.getDouble("rbi_loan_balance"), rs.getDouble("invested_amount"));
         }
     }
 
-    private void executeUpdate(String sql) throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(sql);
+    private List<Staff> readStaff() throws SQLException {
+        List<Staff> staff = new ArrayList<>();
+        streamRows("SELECT * FROM staff", rs -> staff.add(new Staff(
+                rs.getString("staff_id"),
+                rs.getString("name"),
+                rs.getString("username"),
+                rs.getString("password"),
+                StaffRole.valueOf(rs.getString("role")))));
+        return staff;
+    }
+
+    private List<Customer> readCustomers() throws SQLException {
+        List<Customer> customers = new ArrayList<>();
+        streamRows("SELECT * FROM customers", rs -> {
+            // Constructor: (id, name, mobile, email, dob, address, city, state, pin, pan,
+            // aadhar)
+            LocalDate dob = rs.getDate("date_of_birth").toLocalDate();
+            Customer c = new Customer(
+                    rs.getString("customer_id"),
+                    rs.getString("customer_name"),
+                    rs.getString("mobile_number"),
+                    rs.getString("email"),
+                    dob,
+                    rs.getString("address"),
+                    rs.getString("city"),
+                    rs.getString("state"),
+                    rs.getString("pincode"),
+                    rs.getString("pan_number"),
+                    rs.getString("aadhar_number"));
+            c.setPasswordDirect(rs.getString("password"));
+            c.setRelationshipManagerId(rs.getString("relationship_manager_id"));
+            customers.add(c);
+        });
+        return customers;
+    }
+
+    private List<BankAccount> readAccounts() throws SQLException {
+        List<BankAccount> accounts = new ArrayList<>();
+        streamRows("SELECT * FROM bank_accounts ORDER BY account_number", rs -> {
+            BankAccount acc = BankAccount.restore(
+                    rs.getString("account_number"),
+                    rs.getString("customer_id"),
+                    rs.getString("account_holder_name"),
+                    rs.getString("mobile_number"),
+                    rs.getDouble("balance"),
+                    AccountType.valueOf(rs.getString("account_type")));
+            acc.restoreJournalState(rs.getDouble("balance"), rs.getDouble("cumulative_fees"),
+                    rs.getDouble("cumulative_interest"), rs.getBoolean("is_active"),
+                    rs.getBoolean("is_frozen"));
+            accounts.add(acc);
+        });
+        return accounts;
+    }
+
+    // Account numbers splitting the (sorted) accounts into about equal ranges; the bounds
+    // come from MySQL's own ordering, so the range queries cover every row exactly once
+    private static List<String> partitionBounds(List<BankAccount> accounts, int partitions) {
+        List<String> bounds = new ArrayList<>();
+        int perPartition = Math.max(MIN_PARTITION_ACCOUNTS, (accounts.size() + partitions - 1) / partitions);
+        for (int i = perPartition; i < accounts.size(); i += perPartition) {
+            bounds.add(accounts.get(i).getAccountNumber());
         }
+        return bounds;
     }
 
-    public void close() {
+    // Logs with from <= account_number < to (null: unbounded)
+    private int readLogs(String from, String to, Map<String, BankAccount> byNumber) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT account_number, log_entry FROM transaction_logs");
+        List<Object> params = new ArrayList<>();
+        if (from != null) {
+            sql.append(" WHERE account_number >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            sql.append(from != null ? " AND" : " WHERE").append(" account_number < ?");
+            params.add(to);
+        }
+        sql.append(" ORDER BY account_number, entry_order");
+        int[] rows = { 0 };
+        streamRows(sql.toString(), params, rs -> {
+            BankAccount acc = byNumber.get(rs.getString(1));
+            if (acc != null) {
+                acc.addRestoredTransaction(rs.getString(2));
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    private int readFixedDeposits(Map<String, BankAccount> byNumber) throws SQLException {
+        int[] rows = { 0 };
+        streamRows("SELECT * FROM fixed_deposits ORDER BY account_number, created_at", rs -> {
+            BankAccount acc = byNumber.get(rs.getString("account_number"));
+            if (acc != null) {
+                acc.getFixedDeposits().add(FixedDeposit.restore(
+                        rs.getString("fd_number"),
+                        rs.getString("account_number"),
+                        rs.getDouble("principal_amount"),
+                        rs.getDouble("interest_rate"),
+                        rs.getInt("tenure_months"),
+                        rs.getDouble("maturity_amount"),
+                        rs.getDate("start_date").toLocalDate(),
+                        rs.getDate("maturity_date").toLocalDate(),
+                        rs.getBoolean("is_active")));
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    private int readRecurringDeposits(Map<String, BankAccount> byNumber) throws SQLException {
+        int[] rows = { 0 };
+        streamRows("SELECT * FROM recurring_deposits ORDER BY account_number, created_at", rs -> {
+            BankAccount acc = byNumber.get(rs.getString("account_number"));
+            if (acc != null) {
+                acc.getRecurringDeposits().add(RecurringDeposit.restore(
+                        rs.getString("rd_number"),
+                        rs.getString("account_number"),
+                        rs.getDouble("monthly_installment"),
+                        rs.getDouble("interest_rate"),
+                        rs.getInt("tenure_months"),
+                        rs.getInt("installments_paid"),
+                        rs.getDouble("total_deposited"),
+                        rs.getDouble("maturity_amount"),
+                        rs.getDate("start_date").toLocalDate(),
+                        rs.getDate("maturity_date").toLocalDate(),
+                        rs.getBoolean("is_active")));
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    // Nominees are stored per account but held per customer
+    private int readNominees(Map<String, BankAccount> byNumber, Map<String, Customer> customersById)
+            throws SQLException {
+        int[] rows = { 0 };
+        streamRows("SELECT account_number, nominee_name, nominee_dob, relationship FROM nominees", rs -> {
+            BankAccount acc = byNumber.get(rs.getString(1));
+            Customer c = acc != null ? customersById.get(acc.getCustomerId()) : null;
+            if (c != null) {
+                c.setNominee(rs.getString(2), rs.getString(4), rs.getDate(3).toLocalDate());
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    private interface ConnectionTask<T> {
+        T run() throws SQLException;
+    }
+
+    // Run a task on a worker thread with a connection of its own
+    private <T> Future<T> fork(ExecutorService workers, ConnectionTask<T> task) {
+        return workers.submit(() -> {
+            try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+                current.set(connection);
+                return task.run();
+            } finally {
+                current.remove();
+            }
+        });
+    }
+
+    private static <T> T join(Future<T> task) throws SQLException {
         try {
-            if (connection != null)
-                connection.close();
-        } catch (Exception e) {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
         }
     }
+
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    private void streamRows(String sql, RowHandler handler) throws SQLException {
+        streamRows(sql, new ArrayList<>(), handler);
+    }
+
+    // Forward-only cursor fetching FETCH_SIZE rows per round trip (useCursorFetch), so
+    // large tables are never held in memory at once
+    private void streamRows(String sql, List<Object> params, RowHandler handler) throws SQLException {
+        PreparedStatement stmt = conn().prepare(sql);
+        stmt.setFetchSize(FETCH_SIZE);
+        bind(stmt, params);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                handler.accept(rs);
+            }
+        }
+    }
+
+    public void close() {
+        if (pool != null)
+            pool.close();
+    }
 }
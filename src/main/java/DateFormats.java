@@ -0,0 +1,62 @@
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * DateFormats - Shared date and time formatters for the whole bank.
+ *
+ * java.time formatters are immutable and thread-safe, so each pattern exists
+ * once instead of as a SimpleDateFormat per object or per call. History
+ * timestamps are formatted at most once per second: every entry written or
+ * displayed within the same second reuses the same string.
+ */
+public final class DateFormats {
+    public static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final DateTimeFormatter STATEMENT_DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    public static final DateTimeFormatter GENERATED_AT = DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm:ss a");
+    public static final DateTimeFormatter MESSAGE_SENT = DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a");
+    public static final DateTimeFormatter MESSAGE_DAY = DateTimeFormatter.ofPattern("dd MMM");
+
+    private static volatile CachedStamp lastStamp = new CachedStamp(Long.MIN_VALUE, null);
+
+    // The last second formatted and its text
+    private static final class CachedStamp {
+        final long seconds;
+        final String text;
+
+        CachedStamp(long seconds, String text) {
+            this.seconds = seconds;
+            this.text = text;
+        }
+    }
+
+    private DateFormats() {
+    }
+
+    // Current local time as "yyyy-MM-dd HH:mm:ss"
+    public static String timestamp() {
+        return timestamp(BankClock.nowLocalSeconds());
+    }
+
+    // Local epoch seconds (see BankClock) as "yyyy-MM-dd HH:mm:ss"
+    public static String timestamp(long localSeconds) {
+        CachedStamp cached = lastStamp;
+        if (cached.seconds != localSeconds) {
+            cached = new CachedStamp(localSeconds,
+                    TIMESTAMP.format(LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC)));
+            lastStamp = cached;
+        }
+        return cached.text;
+    }
+
+    public static String timestamp(LocalDateTime time) {
+        return timestamp(time.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    // For the java.util.Date fields kept in existing data files
+    public static String format(Date date, DateTimeFormatter formatter) {
+        return formatter.format(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+}
@@ -126,4 +126,55 @@ public class FixedDeposit implements Serializable {
         System.out.println(DIM + "  │ " + RESET + "Status:          " +
                 (isMatured ? BRIGHT_YELLOW + "Matured" : (isActive ? GREEN + "Active" : RED + "Closed")) + RESET);
     }
+
+    // Database restore - keeps the stored dates instead of starting the FD today
+    public static FixedDeposit restore(String fdNumber, String accountNumber, double principalAmount,
+            double interestRate, int tenureMonths, double maturityAmount, LocalDate startDate,
+            LocalDate maturityDate, boolean isActive) {
+        FixedDeposit fd = new FixedDeposit();
+        fd.fdNumber = fdNumber;
+        fd.accountNumber = accountNumber;
+        fd.principalAmount = principalAmount;
+        fd.interestRate = interestRate;
+        fd.tenureMonths = tenureMonths;
+        fd.maturityAmount = maturityAmount;
+        fd.startDate = startDate;
+        fd.maturityDate = maturityDate;
+        fd.isActive = isActive;
+        fd.isMatured = false;
+        return fd;
+    }
+
+    // Snapshot decoding - fields are filled in by readSnapshot
+    private FixedDeposit() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec)
+    void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(fdNumber);
+        out.writeString(accountNumber);
+        out.writeDouble(principalAmount);
+        out.writeDouble(interestRate);
+        out.writeVarInt(tenureMonths);
+        out.writeDate(startDate);
+        out.writeDate(maturityDate);
+        out.writeDouble(maturityAmount);
+        out.writeBoolean(isActive);
+        out.writeBoolean(isMatured);
+    }
+
+    static FixedDeposit readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        FixedDeposit fd = new FixedDeposit();
+        fd.fdNumber = in.readString();
+        fd.accountNumber = in.readString();
+        fd.principalAmount = in.readDouble();
+        fd.interestRate = in.readDouble();
+        fd.tenureMonths = in.readVarInt();
+        fd.startDate = in.readDate();
+        fd.maturityDate = in.readDate();
+        fd.maturityAmount = in.readDouble();
+        fd.isActive = in.readBoolean();
+        fd.isMatured = in.readBoolean();
+        return fd;
+    }
 }
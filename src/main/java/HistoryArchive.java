@@ -0,0 +1,199 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * HistoryArchive - Cold tier of account history: compressed, immutable segment files.
+ *
+ * Entries older than the hot window (-Dbank.historyHotDays, 90 by default)
+ * are moved out of an account's in-memory ledger into a segment file under
+ * bank_history/&lt;account&gt;/ when the account is next snapshotted. A segment
+ * holds the entries in the snapshot history encoding, deflated; the snapshot
+ * itself only keeps the list of segments. Segments are read back on demand
+ * (full statements, database sync) and never kept in memory.
+ *
+ * A segment file is durable before the snapshot that refers to it is
+ * written, so a crash in between only leaves an unreferenced file behind.
+ * Such files are deleted when the account is next decoded from a committed
+ * snapshot. Segments hold at most -Dbank.historySegmentEntries entries.
+ */
+public final class HistoryArchive {
+    // "BOFH"
+    private static final int SEGMENT_MAGIC = 0x424F4648;
+    private static final File DIRECTORY = new File(System.getProperty("bank.historyDir", "bank_history"));
+
+    // Entries younger than this stay in memory (-Dbank.historyHotDays=...)
+    private static final long HOT_SECONDS = Long.getLong("bank.historyHotDays", 90L) * 24 * 60 * 60;
+
+    // The most recent entries always stay in memory, however old, and tiny segments are not worth a file
+    static final int MIN_HOT_ENTRIES = 64;
+    static final int MIN_SEGMENT_ENTRIES = 256;
+    // Larger runs are split over several segments, so reading one back stays cheap
+    static final int MAX_SEGMENT_ENTRIES = Math.max(MIN_SEGMENT_ENTRIES,
+            Integer.getInteger("bank.historySegmentEntries", 65536));
+
+    /**
+     * One archived run of entries; first is its index in the account's whole history.
+     */
+    static final class Segment {
+        final int first;
+        final int count;
+        final long firstTime; // Earliest and latest timestamps, NO_TIME if it has none
+        final long lastTime;
+        private final File file;
+
+        private Segment(File file, int first, int count, long firstTime, long lastTime) {
+            this.file = file;
+            this.first = first;
+            this.count = count;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+        }
+
+        int end() {
+            return first + count;
+        }
+
+        // Decoded entries of the segment - a fresh ledger on every call
+        TransactionLedger load() {
+            try {
+                ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+                if (header.remaining() < 8 || header.getInt() != SEGMENT_MAGIC) {
+                    throw new IOException("Not a history segment: " + file);
+                }
+                int version = header.getInt();
+                if (version != SnapshotCodec.VERSION) {
+                    throw new IOException("Unsupported history segment version " + version + ": " + file);
+                }
+                SnapshotCodec.Reader in = SnapshotCodec.readerOf(inflate(header));
+                int stored = in.readCount();
+                if (stored != count) {
+                    throw new IOException("History segment " + file + " holds " + stored + " entries, expected "
+                            + count);
+                }
+                return TransactionLedger.readSnapshot(in, count);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archived transaction history", e);
+            }
+        }
+
+        void writeSnapshot(SnapshotCodec.Writer out) throws IOException {
+            out.writeString(file.getName());
+            out.writeVarInt(first);
+            out.writeVarInt(count);
+            out.writeLong(firstTime);
+            out.writeLong(lastTime);
+        }
+
+        static Segment readSnapshot(SnapshotCodec.Reader in, String accountNumber) throws IOException {
+            File file = new File(accountDirectory(accountNumber), in.readString());
+            int first = in.readCount();
+            int count = in.readCount();
+            return new Segment(file, first, count, in.readLong(), in.readLong());
+        }
+    }
+
+    private HistoryArchive() {
+    }
+
+    // Entries older than this (local epoch seconds) belong in the cold tier
+    static long cutoff() {
+        return BankClock.nowLocalSeconds() - HOT_SECONDS;
+    }
+
+    // Write entries [from, to) of the ledger as segment number 'first' of the account's history
+    static Segment write(String accountNumber, TransactionLedger ledger, int from, int to, int first)
+            throws IOException {
+        long firstTime = TransactionLedger.NO_TIME;
+        long lastTime = TransactionLedger.NO_TIME;
+        for (int i = from; i < to; i++) {
+            long time = ledger.timeAt(i);
+            if (time != TransactionLedger.NO_TIME) {
+                if (firstTime == TransactionLedger.NO_TIME || time < firstTime) {
+                    firstTime = time;
+                }
+                if (lastTime == TransactionLedger.NO_TIME || time > lastTime) {
+                    lastTime = time;
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * (to - from));
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(SEGMENT_MAGIC);
+        header.writeInt(SnapshotCodec.VERSION);
+        header.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DataOutputStream body = new DataOutputStream(new DeflaterOutputStream(bytes, deflater));
+            SnapshotCodec.Writer out = new SnapshotCodec.Writer(body);
+            out.writeVarInt(to - from);
+            ledger.writeEntries(out, from, to);
+            body.close();
+        } finally {
+            deflater.end();
+        }
+
+        File directory = accountDirectory(accountNumber);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File file = new File(directory, first + "-" + (to - from) + ".seg");
+        SnapshotWriter.writeAtomically(file, bytes.toByteArray());
+        return new Segment(file, first, to - from, firstTime, lastTime);
+    }
+
+    // Delete the account's segment files that the committed snapshot does not list - left by a
+    // crash between writing a segment and the snapshot that would have referred to it
+    static void removeUnreferenced(String accountNumber, List<Segment> segments) {
+        File[] files = accountDirectory(accountNumber).listFiles();
+        if (files == null) {
+            return;
+        }
+        Set<String> referenced = new HashSet<>();
+        for (Segment segment : segments) {
+            referenced.add(segment.file.getName());
+        }
+        for (File file : files) {
+            if (!referenced.contains(file.getName()) && !file.delete()) {
+                System.err.println("Cannot delete unreferenced history segment " + file);
+            }
+        }
+    }
+
+    private static File accountDirectory(String accountNumber) {
+        return new File(DIRECTORY, accountNumber);
+    }
+
+    private static ByteBuffer inflate(ByteBuffer compressed) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), compressed.position(), compressed.remaining());
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.remaining() * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated history segment");
+                }
+                out.write(chunk, 0, n);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt history segment", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
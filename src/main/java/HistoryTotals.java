@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * HistoryTotals - Credits and debits per calendar month over an account's whole history.
+ *
+ * BankAccount adds every entry as it is appended, so a statement header only
+ * reads the entries of the month its period starts in and takes the later
+ * months from here - the archived part of the history is never read for it.
+ * Adding an entry allocates nothing unless it opens a new month. Sums are
+ * kept in paise (see Money), so they stay exact however long the history.
+ *
+ * Not thread-safe; BankAccount guards it with the account lock.
+ */
+public class HistoryTotals {
+    // Months in order, as year * 12 + month - 1; entries without a timestamp count in no month
+    private int[] monthKeys = new int[4];
+    private long[] monthCredits = new long[4];
+    private long[] monthDebits = new long[4];
+    private int months;
+
+    public static HistoryTotals of(TransactionLedger ledger) {
+        HistoryTotals totals = new HistoryTotals();
+        for (int i = 0; i < ledger.size(); i++) {
+            totals.add(ledger, i);
+        }
+        return totals;
+    }
+
+    public void add(TransactionLedger ledger, int index) {
+        long time = ledger.timeAt(index);
+        if (time == TransactionLedger.NO_TIME) {
+            return;
+        }
+        TransactionEntry.Direction direction = ledger.directionAt(index);
+        if (direction == TransactionEntry.Direction.CREDIT) {
+            monthCredits[monthSlot(monthKey(time))] += Money.toPaise(ledger.amountAt(index));
+        } else if (direction == TransactionEntry.Direction.DEBIT) {
+            monthDebits[monthSlot(monthKey(time))] += Money.toPaise(ledger.amountAt(index));
+        }
+    }
+
+    // Local epoch seconds to year * 12 + month - 1, without building a date
+    private static int monthKey(long time) {
+        long days = Math.floorDiv(time, 86400L);
+        // Civil-from-days (proleptic Gregorian), as in java.time.LocalDate.ofEpochDay
+        long zeroDay = days + 719468;
+        long era = Math.floorDiv(zeroDay, 146097);
+        long dayOfEra = zeroDay - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    // Slot of the month, adding it if new; history is appended in time order, so usually the last one
+    private int monthSlot(int key) {
+        if (months > 0 && monthKeys[months - 1] == key) {
+            return months - 1;
+        }
+        int slot = Arrays.binarySearch(monthKeys, 0, months, key);
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = -slot - 1;
+        if (months == monthKeys.length) {
+            int capacity = months * 2;
+            monthKeys = Arrays.copyOf(monthKeys, capacity);
+            monthCredits = Arrays.copyOf(monthCredits, capacity);
+            monthDebits = Arrays.copyOf(monthDebits, capacity);
+        }
+        int tail = months - slot;
+        System.arraycopy(monthKeys, slot, monthKeys, slot + 1, tail);
+        System.arraycopy(monthCredits, slot, monthCredits, slot + 1, tail);
+        System.arraycopy(monthDebits, slot, monthDebits, slot + 1, tail);
+        monthKeys[slot] = key;
+        monthCredits[slot] = 0;
+        monthDebits[slot] = 0;
+        months++;
+        return slot;
+    }
+
+    // Credits in paise over the month and every later one
+    long creditsSince(YearMonth month) {
+        return sumSince(monthCredits, month);
+    }
+
+    // Debits in paise over the month and every later one
+    long debitsSince(YearMonth month) {
+        return sumSince(monthDebits, month);
+    }
+
+    private long sumSince(long[] sums, YearMonth month) {
+        int slot = Arrays.binarySearch(monthKeys, 0, months, monthKey(month));
+        long total = 0;
+        for (int i = slot >= 0 ? slot : -slot - 1; i < months; i++) {
+            total += sums[i];
+        }
+        return total;
+    }
+
+    void writeSnapshot(SnapshotCodec.Writer out) throws IOException {
+        out.writeVarInt(months);
+        for (int i = 0; i < months; i++) {
+            out.writeVarInt(monthKeys[i]);
+            out.writeVarLong(monthCredits[i]);
+            out.writeVarLong(monthDebits[i]);
+        }
+    }
+
+    static HistoryTotals readSnapshot(SnapshotCodec.Reader in) throws IOException {
+        HistoryTotals totals = new HistoryTotals();
+        int count = in.readCount();
+        totals.monthKeys = new int[Math.max(4, count)];
+        totals.monthCredits = new long[totals.monthKeys.length];
+        totals.monthDebits = new long[totals.monthKeys.length];
+        for (int i = 0; i < count; i++) {
+            totals.monthKeys[i] = in.readCount();
+            totals.monthCredits[i] = in.readVarLong();
+            totals.monthDebits[i] = in.readVarLong();
+        }
+        totals.months = count;
+        return totals;
+    }
+}
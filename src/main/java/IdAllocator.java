@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdAllocator - Hands out unique numbers for account, customer and deposit IDs.
+ *
+ * Numbers are leased in blocks (-Dbank.idBlockSize=..., 32 by default) off
+ * one shared high-water mark, and each of a fixed set of stripes holds one
+ * block. A thread always draws from the same stripe, so threads opening
+ * accounts at the same time rarely meet on a lock and the shared mark moves
+ * once per block. A single thread gets consecutive numbers; concurrent ones
+ * see gaps between their blocks, never a number twice.
+ *
+ * nextUnissued() is the mark to persist: every number handed out so far is
+ * below it, so an allocator restarted from it cannot repeat one. Numbers
+ * leased but not yet handed out are simply reused after the restart.
+ */
+public class IdAllocator {
+    private static final int BLOCK_SIZE = Math.max(1, Integer.getInteger("bank.idBlockSize", 32));
+    // A power of two, up to twice the number of cores
+    private static final int STRIPES = Integer.highestOneBit(Math.min(32,
+            Runtime.getRuntime().availableProcessors())) * 2;
+
+    // The block one stripe is drawing from; empty until first used
+    private static final class Stripe {
+        long next;
+        long end;
+    }
+
+    private final long first;
+    private final AtomicLong highWater;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public IdAllocator(long first) {
+        this.first = first;
+        this.highWater = new AtomicLong(first);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public long next() {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        synchronized (stripe) {
+            if (stripe.next == stripe.end) {
+                stripe.next = highWater.getAndAdd(BLOCK_SIZE);
+                stripe.end = stripe.next + BLOCK_SIZE;
+            }
+            return stripe.next++;
+        }
+    }
+
+    // Every number issued so far is below this; blocks are leased in increasing order, so
+    // the furthest stripe bounds them all
+    public long nextUnissued() {
+        long mark = first;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.end != 0) {
+                    mark = Math.max(mark, stripe.next);
+                }
+            }
+        }
+        return mark;
+    }
+}
@@ -1,6 +1,5 @@
 import java.io.Serializable;
 import java.util.Date;
-import java.text.SimpleDateFormat;
 
 public class Message implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -24,7 +23,10 @@ public class Message implements Serializable {
     }
 
     public void markAsRead() {
-        this.isRead = true;
+        if (!isRead) {
+            this.isRead = true;
+            ChangeTracker.structureChanged();
+        }
     }
 
     // Getters
@@ -67,8 +69,6 @@ public class Message implements Serializable {
         String DIM = "\u001B[2m";
         String WHITE = "\u001B[37m";
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy, hh:mm a");
-
         // Category color
         String categoryColor = CYAN;
         String categoryIcon = "📧";
@@ -130,7 +130,7 @@ public class Message implements Serializable {
         }
 
         System.out.println("  " + BRIGHT_CYAN + "├─ Details" + RESET);
-        System.out.println("  " + BRIGHT_CYAN + "│" + RESET + " Sent: " + DIM + dateFormat.format(sentDate) + RESET);
+        System.out.println("  " + BRIGHT_CYAN + "│" + RESET + " Sent: " + DIM + DateFormats.format(sentDate, DateFormats.MESSAGE_SENT) + RESET);
 
         System.out.println("  " + BRIGHT_CYAN + "└──────────────────────────────────────────────────────────┘" + RESET);
     }
@@ -141,11 +141,37 @@ public class Message implements Serializable {
         String BRIGHT_GREEN = "\u001B[92m";
         String DIM = "\u001B[2m";
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM");
         String readStatus = isRead ? DIM : BRIGHT_GREEN + "●" + RESET;
         String truncatedSubject = subject.length() > 40 ? subject.substring(0, 37) + "..." : subject;
 
-        return readStatus + " " + BOLD + truncatedSubject + RESET + " " + DIM + "(" + dateFormat.format(sentDate) + ")"
+        return readStatus + " " + BOLD + truncatedSubject + RESET + " " + DIM + "(" + DateFormats.format(sentDate, DateFormats.MESSAGE_DAY) + ")"
                 + RESET;
     }
+
+    // Snapshot decoding - fields are filled in by readSnapshot
+    private Message() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec); shared messages are written once by the codec
+    void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(messageId);
+        out.writeString(subject);
+        out.writeString(content);
+        out.writeString(category);
+        out.writeTimestamp(sentDate);
+        out.writeBoolean(isRead);
+        out.writeString(priority);
+    }
+
+    static Message readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        Message message = new Message();
+        message.messageId = in.readString();
+        message.subject = in.readString();
+        message.content = in.readString();
+        message.category = in.readString();
+        message.sentDate = in.readTimestamp();
+        message.isRead = in.readBoolean();
+        message.priority = in.readString();
+        return message;
+    }
 }
@@ -0,0 +1,36 @@
+/**
+ * Money - Conversions between rupee amounts and whole paise.
+ *
+ * Account balances and revenue counters are held as longs in paise, so
+ * repeated fee and GST postings add up exactly. Amounts still enter and
+ * leave as rupee doubles; they are rounded to the nearest paisa on the way
+ * in, and every paise value converts back to the nearest double. Amounts
+ * above MAX_AMOUNT are refused where they enter, and balances are added
+ * with overflow checks rather than left to wrap.
+ */
+public final class Money {
+    // Largest single amount accepted, in rupees (one lakh crore)
+    public static final double MAX_AMOUNT = 1e12;
+
+    private Money() {
+    }
+
+    // A positive amount no larger than MAX_AMOUNT that is at least one paisa
+    public static boolean isValidAmount(double rupees) {
+        return rupees <= MAX_AMOUNT && toPaise(rupees) > 0;
+    }
+
+    public static long toPaise(double rupees) {
+        return Math.round(rupees * 100);
+    }
+
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    // percent of an amount, rounded half up to the paisa (half away from zero for negatives)
+    public static long percentOf(long paise, long percent) {
+        long scaled = paise * percent;
+        return scaled >= 0 ? (scaled + 50) / 100 : -((-scaled + 50) / 100);
+    }
+}
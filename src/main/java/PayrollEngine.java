@@ -0,0 +1,194 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PayrollEngine - Pays the same salary from a corporate account to many accounts.
+ *
+ * The whole batch - every salary with its transfer fee and GST - is taken
+ * from the corporate account in one debit before anything is paid, so a
+ * payroll is either funded as a whole or not started. The salaries are then
+ * credited in parallel (one worker per core unless -Dbank.payrollWorkers=...;
+ * small batches stay on the calling thread). Each credit locks only its
+ * destination account, so workers meet only on accounts listed twice.
+ * Whatever could not be paid is refunded at the end.
+ *
+ * The corporate history gets one entry for the batch plus its fee and GST.
+ * Each employee gets a transfer-in entry as before. Nothing is printed; the
+ * outcome comes back as a Result.
+ */
+public final class PayrollEngine {
+    private static final int WORKERS = Integer.getInteger("bank.payrollWorkers",
+            Runtime.getRuntime().availableProcessors());
+    // Batches smaller than this are paid on the calling thread
+    private static final int PARALLEL_THRESHOLD = 512;
+    // Employees a worker takes from the shared cursor at a time
+    private static final int SLICE = 64;
+    private static final String REMARK = "Payroll";
+
+    // Outcome per employee, one byte each
+    private static final byte PAID = 1;
+    private static final byte NOT_FOUND = 2;
+    private static final byte CANNOT_RECEIVE = 3;
+    private static final byte SAME_ACCOUNT = 4;
+
+    // Outcome of a payroll
+    public static final class Result {
+        public final String error; // Why nothing was paid, or null
+        public final int paid;
+        public final double amountPaid;
+        public final double fees; // Transfer fees and GST on the payments made
+        public final List<String> skipped; // "ACC1234: reason", in list order
+        public final long elapsedMillis;
+
+        Result(String error, int paid, double amountPaid, double fees, List<String> skipped, long elapsedMillis) {
+            this.error = error;
+            this.paid = paid;
+            this.amountPaid = amountPaid;
+            this.fees = fees;
+            this.skipped = skipped;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    private final Bank bank;
+    private final BankAccount from;
+    private final List<String> toAccounts;
+    private final long salary; // Paise
+    private final byte[] outcomes;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private PayrollEngine(Bank bank, BankAccount from, List<String> toAccounts, long salary) {
+        this.bank = bank;
+        this.from = from;
+        this.toAccounts = toAccounts;
+        this.salary = salary;
+        this.outcomes = new byte[toAccounts.size()];
+    }
+
+    public static Result run(Bank bank, BankAccount from, List<String> toAccounts, double amountPerEmployee) {
+        long start = System.currentTimeMillis();
+        String error = null;
+        long salary = Money.toPaise(amountPerEmployee);
+        try {
+            if (from == null || from.getAccountType() != AccountType.CORPORATE) {
+                error = "Invalid corporate account";
+            } else if (!Money.isValidAmount(amountPerEmployee)) {
+                error = "Invalid salary amount";
+            } else if (toAccounts.isEmpty()) {
+                error = "No employee accounts";
+            } else if (from.isFrozen() || !from.isActive()) {
+                error = "Corporate account is frozen or closed";
+            } else if (!from.reservePayroll(salary, toAccounts.size())) {
+                error = "Insufficient funds for " + toAccounts.size() + " salaries of ₹"
+                        + String.format("%,.2f", Money.toRupees(salary)) + " plus fees";
+            }
+        } catch (ArithmeticException e) {
+            error = "Payroll total is too large";
+        }
+        if (error != null) {
+            return new Result(error, 0, 0.0, 0.0, Collections.emptyList(), System.currentTimeMillis() - start);
+        }
+        return new PayrollEngine(bank, from, toAccounts, salary).pay(start);
+    }
+
+    private Result pay(long start) {
+        int workers = Math.max(1, Math.min(WORKERS, toAccounts.size() / PARALLEL_THRESHOLD));
+        if (workers == 1) {
+            work();
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "payroll");
+                t.setDaemon(true);
+                return t;
+            });
+            for (int i = 0; i < workers; i++) {
+                pool.execute(this::work);
+            }
+            pool.shutdown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    // The reservation is settled below, so the credits are waited for
+                    if (pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int paid = 0;
+        List<String> skipped = new ArrayList<>();
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == PAID) {
+                paid++;
+            } else {
+                skipped.add(toAccounts.get(i) + ": " + reason(outcomes[i]));
+            }
+        }
+        long fees = from.settlePayroll(salary, outcomes.length, paid);
+        return new Result(null, paid, Money.toRupees(salary * paid), Money.toRupees(fees), skipped,
+                System.currentTimeMillis() - start);
+    }
+
+    // One worker: takes slices of the list until none are left
+    private void work() {
+        String fromNumber = from.getAccountNumber();
+        double amount = Money.toRupees(salary);
+        int begin;
+        while ((begin = next.getAndAdd(SLICE)) < outcomes.length) {
+            int end = Math.min(begin + SLICE, outcomes.length);
+            for (int i = begin; i < end; i++) {
+                byte outcome;
+                try {
+                    outcome = credit(toAccounts.get(i), fromNumber, amount);
+                } catch (RuntimeException e) {
+                    // A stored account that cannot be decoded is skipped and refunded
+                    outcome = NOT_FOUND;
+                }
+                outcomes[i] = outcome;
+            }
+        }
+    }
+
+    private byte credit(String accountNumber, String fromNumber, double amount) {
+        if (accountNumber.equals(fromNumber)) {
+            return SAME_ACCOUNT;
+        }
+        BankAccount to = bank.getAccount(accountNumber);
+        if (to == null) {
+            return NOT_FOUND;
+        }
+        synchronized (to) {
+            if (!to.canReceiveTransfer()) {
+                return CANNOT_RECEIVE;
+            }
+            to.transferIn(amount, fromNumber, REMARK);
+            // Journaled with the corporate debit, so a crash cannot keep one without the other
+            ChangeTracker.accountChanged(to);
+        }
+        return PAID;
+    }
+
+    private static String reason(byte outcome) {
+        switch (outcome) {
+            case NOT_FOUND:
+                return "no such account";
+            case CANNOT_RECEIVE:
+                return "cannot receive transfers";
+            case SAME_ACCOUNT:
+                return "the paying account";
+            default:
+                return "not paid";
+        }
+    }
+}
@@ -1,21 +1,175 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class PersistenceManager {
     private static final String DATA_FILE = "bank_data.ser";
+    private static final String JOURNAL_FILE = "bank_data.journal";
+
+    // Fold the journal into a fresh snapshot once it grows past either limit
+    private static final int CHECKPOINT_RECORDS = 500;
+    private static final long CHECKPOINT_BYTES = 4L * 1024 * 1024;
+
+    // Autosaves within this window share one durable write (-Dbank.commitWindowMs=...)
+    private static final long COMMIT_WINDOW_MS = Long.getLong("bank.commitWindowMs", 200L);
+
+    // How often the background writer looks for changed state (-Dbank.flushIntervalMs=...)
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("bank.flushIntervalMs", 500L);
+
+    private static final TransactionJournal journal = new TransactionJournal(JOURNAL_FILE);
+    private static final SnapshotWriter snapshots = new SnapshotWriter(DATA_FILE, journal, COMMIT_WINDOW_MS);
+    private static ScheduledExecutorService backgroundWriter;
+
+    // Per account: history size as of the last snapshot or journal record. Changes the journal
+    // does not carry (FDs, RDs, vendors, account details) mark the structure changed instead
+    private static final Map<String, Integer> persistedHistory = new ConcurrentHashMap<>();
+
+    // Start flushing changed state in the background; autosaves then never touch the disk
+    public static synchronized void startBackgroundWriter(Bank bank) {
+        if (backgroundWriter != null) {
+            return;
+        }
+        backgroundWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bank-persistence");
+            t.setDaemon(true);
+            return t;
+        });
+        backgroundWriter.scheduleWithFixedDelay(() -> flushChanges(bank), FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
 
     // Silent save - used for auto-save after transactions (no output for security)
     public static void saveBank(Bank bank) {
-        saveBank(bank, false);
+        if (backgroundWriter == null) {
+            saveBank(bank, false, false);
+        } else {
+            // Picked up by the background writer on its next flush
+            ChangeTracker.structureChanged();
+        }
     }
 
     // Verbose save - used during application exit (shows confirmation)
     public static void saveBankVerbose(Bank bank) {
-        saveBank(bank, true);
+        synchronized (PersistenceManager.class) {
+            ChangeTracker.clear();
+            saveBank(bank, true, true);
+        }
+    }
+
+    // Final save from the shutdown hook - durable before the JVM exits
+    public static void shutdown(Bank bank) {
+        synchronized (PersistenceManager.class) {
+            if (backgroundWriter != null) {
+                backgroundWriter.shutdown();
+            }
+            ChangeTracker.clear();
+            saveBank(bank, false, true);
+        }
+        snapshots.close();
+    }
+
+    // Journaled save - only the touched accounts are written, by the background writer when running
+    public static void recordTransaction(Bank bank, BankAccount... accounts) {
+        for (BankAccount account : accounts) {
+            if (account != null) {
+                ChangeTracker.accountChanged(account);
+            }
+        }
+        if (backgroundWriter == null) {
+            flushChanges(bank);
+        }
+    }
+
+    // Persist whatever changed since the last flush: a snapshot for structural changes,
+    // otherwise one journal record per dirty account
+    private static synchronized void flushChanges(Bank bank) {
+        try {
+            if (ChangeTracker.takeStructureChange()) {
+                ChangeTracker.takeDirtyAccounts(); // Covered by the snapshot
+                saveBank(bank, false, false);
+                return;
+            }
+
+            List<BankAccount> accounts = ChangeTracker.takeDirtyAccounts();
+            if (!accounts.isEmpty()) {
+                journalAccounts(bank, accounts);
+            }
+        } catch (ConcurrentModificationException e) {
+            // A list changed under the serializer - try again on the next flush
+            ChangeTracker.structureChanged();
+        } catch (RuntimeException e) {
+            System.err.println("Save error: " + e.getMessage());
+        }
+    }
+
+    private static void journalAccounts(Bank bank, List<BankAccount> accounts) {
+        boolean needsSnapshot = false;
+        try {
+            for (BankAccount account : accounts) {
+                synchronized (account) {
+                    Integer base = persistedHistory.get(account.getAccountNumber());
+                    if (base == null) {
+                        // Not in any snapshot yet - the journal cannot create accounts
+                        needsSnapshot = true;
+                        break;
+                    }
+                    journal.appendAccount(account, base);
+                    persistedHistory.put(account.getAccountNumber(), account.getTransactionCount());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Journal error: " + e.getMessage());
+            needsSnapshot = true;
+        }
+
+        // Snapshot outside the account lock - serializing takes every account's lock
+        if (needsSnapshot || journal.getRecordCount() >= CHECKPOINT_RECORDS || journal.size() >= CHECKPOINT_BYTES) {
+            saveBank(bank, false, false);
+        } else {
+            snapshots.requestCommit();
+        }
     }
 
-    private static void saveBank(Bank bank, boolean verbose) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(bank);
+    private static synchronized void saveBank(Bank bank, boolean verbose, boolean immediate) {
+        try {
+            // Old history goes out to segment files first, without the locks encoding holds
+            bank.getTreasuryAccount().archiveOldHistory();
+            for (BankAccount account : bank.getLoadedAccounts()) {
+                account.archiveOldHistory();
+            }
+
+            // Marked before serializing: lines added while the snapshot is taken land in both the
+            // snapshot and the next journal record, and replay skips the duplicates by position
+            markPersisted(bank);
+            long journalSequence = journal.getLastSequence();
+
+            // Records the last journal record folded into this snapshot
+            byte[] snapshot = SnapshotCodec.encode(bank, journalSequence);
+
+            // Journal records captured so far can go once this snapshot is on disk
+            Runnable foldJournal = () -> {
+                try {
+                    journal.discardThrough(journalSequence);
+                } catch (IOException e) {
+                    System.err.println("Journal error: " + e.getMessage());
+                }
+            };
+
+            if (immediate) {
+                snapshots.writeNow(snapshot, foldJournal);
+            } else {
+                snapshots.submit(snapshot, foldJournal);
+            }
             if (verbose) {
                 System.out.println("✓ Data saved successfully");
             }
@@ -29,21 +183,99 @@ public class PersistenceManager {
         }
     }
 
-    public static Bank loadBank() {
+    public static synchronized Bank loadBank() {
+        Bank bank = readSnapshot();
+        // Loading replays constructors and restore paths - none of that is a new change
+        ChangeTracker.clear();
+        return bank;
+    }
+
+    private static Bank readSnapshot() {
         File file = new File(DATA_FILE);
+        // A leftover temp file is an interrupted save; the real snapshot is intact
+        new File(DATA_FILE + ".tmp").delete();
+
         if (!file.exists()) {
             System.out.println("Starting with a new Bank system.");
-            return new Bank();
+            Bank bank = new Bank();
+            markPersisted(bank);
+            return bank;
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            Bank bank = (Bank) ois.readObject();
+        try {
+            Bank bank;
+            long snapshotSequence;
+            ByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                // The mapping outlives the channel; accounts are decoded from it on first use
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            boolean legacy = !SnapshotCodec.isCompact(mapped);
+            if (legacy) {
+                // bank_data.ser from before the compact format - read once, rewritten below
+                try (ObjectInputStream ois = new ObjectInputStream(
+                        new BufferedInputStream(new FileInputStream(file)))) {
+                    bank = (Bank) ois.readObject();
+                    snapshotSequence = 0;
+                    try {
+                        snapshotSequence = ois.readLong();
+                    } catch (EOFException e) {
+                        // Snapshot written before journaling existed
+                    }
+                }
+            } else {
+                SnapshotCodec.Snapshot snapshot = SnapshotCodec.decode(mapped);
+                bank = snapshot.bank;
+                snapshotSequence = snapshot.journalSequence;
+            }
+            // Accounts decoded later are exactly as on disk
+            bank.setAccountLoadListener(PersistenceManager::markPersisted);
+
+            int replayed = journal.replay(bank, snapshotSequence);
+            if (replayed > 0) {
+                System.out.println("✓ Recovered " + replayed + " journaled transactions");
+            }
+            if (legacy) {
+                // Keep a copy of the old file in case the migration has to be undone
+                Files.copy(file.toPath(), new File(DATA_FILE + ".legacy").toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                System.out.println("✓ Migrated data to the compact snapshot format");
+            }
+            if (replayed > 0 || legacy) {
+                saveBank(bank, false, true);
+            } else {
+                markPersisted(bank);
+            }
             System.out.println("✓ Data loaded successfully");
             return bank;
         } catch (IOException | ClassNotFoundException e) {
             System.out.println("✗ Error loading data: " + e.getMessage());
+            // Keep the unreadable file for recovery instead of overwriting it on the next save
+            File corrupt = new File(DATA_FILE + ".corrupt");
+            if (file.renameTo(corrupt)) {
+                System.out.println("  Unreadable data moved to " + corrupt.getName());
+            }
             System.out.println("Starting with a new Bank system.");
-            return new Bank();
+            Bank bank = new Bank();
+            markPersisted(bank);
+            return bank;
+        }
+    }
+
+    private static void markPersisted(Bank bank) {
+        persistedHistory.clear();
+        // Accounts still held in the mapped snapshot are recorded as they are decoded
+        for (BankAccount account : bank.getLoadedAccounts()) {
+            markPersisted(account);
+        }
+        if (bank.getTreasuryAccount() != null) {
+            markPersisted(bank.getTreasuryAccount());
+        }
+    }
+
+    private static void markPersisted(BankAccount account) {
+        synchronized (account) {
+            persistedHistory.put(account.getAccountNumber(), account.getTransactionCount());
         }
     }
 }
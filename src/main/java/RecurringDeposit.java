@@ -135,4 +135,58 @@ public class RecurringDeposit implements Serializable {
         System.out.println(DIM + "  │ " + RESET + "Status:              "
                 + (isActive ? GREEN + "Active" : RED + "Closed") + RESET);
     }
+
+    // Database restore - keeps the stored dates and installment progress
+    public static RecurringDeposit restore(String rdNumber, String accountNumber, double monthlyInstallment,
+            double interestRate, int tenureMonths, int installmentsPaid, double totalDeposited,
+            double maturityAmount, LocalDate startDate, LocalDate maturityDate, boolean isActive) {
+        RecurringDeposit rd = new RecurringDeposit();
+        rd.rdNumber = rdNumber;
+        rd.accountNumber = accountNumber;
+        rd.monthlyInstallment = monthlyInstallment;
+        rd.interestRate = interestRate;
+        rd.tenureMonths = tenureMonths;
+        rd.installmentsPaid = installmentsPaid;
+        rd.totalDeposited = totalDeposited;
+        rd.maturityAmount = maturityAmount;
+        rd.startDate = startDate;
+        rd.maturityDate = maturityDate;
+        rd.isActive = isActive;
+        return rd;
+    }
+
+    // Snapshot decoding - fields are filled in by readSnapshot
+    private RecurringDeposit() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec)
+    void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(rdNumber);
+        out.writeString(accountNumber);
+        out.writeDouble(monthlyInstallment);
+        out.writeDouble(interestRate);
+        out.writeVarInt(tenureMonths);
+        out.writeDate(startDate);
+        out.writeDate(maturityDate);
+        out.writeVarInt(installmentsPaid);
+        out.writeDouble(totalDeposited);
+        out.writeDouble(maturityAmount);
+        out.writeBoolean(isActive);
+    }
+
+    static RecurringDeposit readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        RecurringDeposit rd = new RecurringDeposit();
+        rd.rdNumber = in.readString();
+        rd.accountNumber = in.readString();
+        rd.monthlyInstallment = in.readDouble();
+        rd.interestRate = in.readDouble();
+        rd.tenureMonths = in.readVarInt();
+        rd.startDate = in.readDate();
+        rd.maturityDate = in.readDate();
+        rd.installmentsPaid = in.readVarInt();
+        rd.totalDeposited = in.readDouble();
+        rd.maturityAmount = in.readDouble();
+        rd.isActive = in.readBoolean();
+        return rd;
+    }
 }
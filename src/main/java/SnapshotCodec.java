@@ -0,0 +1,446 @@
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SnapshotCodec - Compact versioned binary format for the bank snapshot.
+ *
+ * Layout: magic, format version, enum name tables, the Bank object graph and
+ * the last folded journal sequence. Counts and lengths are varints, strings
+ * are length-prefixed UTF-8, enums are written as indexes into the name
+ * tables (so reordering an enum does not break old snapshots) and messages
+ * shared between inboxes are written once and referenced afterwards. Each
+ * model class encodes its own fields in writeSnapshot/readSnapshot.
+ *
+ * Every account is a length-prefixed record with its history in a
+ * length-prefixed block, so a mapped snapshot can be indexed without decoding
+ * accounts and histories can be decoded on first use (AccountStore). A
+ * history block holds typed entries (TransactionLedger), templated ones as
+ * their figures. An account lists its archived history segments
+ * (HistoryArchive) ahead of the in-memory part of its history, followed by
+ * its monthly history totals (HistoryTotals) in paise. The ID allocators'
+ * high-water marks (IdAllocator) follow the account records.
+ *
+ * Only the current version is read; data from before this format is Java
+ * serialization and is migrated by PersistenceManager.
+ */
+public class SnapshotCodec {
+    // "BOFS" - never collides with the 0xACED header of Java serialization
+    public static final int MAGIC = 0x424F4653;
+    public static final int VERSION = 2;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static final Class<? extends Enum<?>>[] ENUM_TYPES = new Class[] {
+            AccountType.class, StaffRole.class, BusinessType.class };
+
+    // A decoded snapshot together with the journal position it covers
+    public static final class Snapshot {
+        public final Bank bank;
+        public final long journalSequence;
+
+        Snapshot(Bank bank, long journalSequence) {
+            this.bank = bank;
+            this.journalSequence = journalSequence;
+        }
+    }
+
+    public static byte[] encode(Bank bank, long journalSequence) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        Writer out = new Writer(new DataOutputStream(buffer));
+        out.data.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeEnumTables();
+        bank.writeSnapshot(out);
+        out.writeVarLong(journalSequence);
+        out.data.flush();
+        return buffer.toByteArray();
+    }
+
+    // Decode a snapshot held in a (usually memory-mapped) buffer; accounts stay in the buffer until used
+    public static Snapshot decode(ByteBuffer buffer) throws IOException {
+        Reader in = new Reader(buffer.duplicate().order(ByteOrder.BIG_ENDIAN));
+        try {
+            if (in.data.getInt() != MAGIC) {
+                throw new IOException("Not a bank snapshot");
+            }
+            int version = in.readVarInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            in.readEnumTables();
+            Bank bank = Bank.readSnapshot(in);
+            long sequence = in.readVarLong();
+            return new Snapshot(bank, sequence);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    // Reader over data encoded outside a snapshot, such as an archived history segment
+    static Reader readerOf(ByteBuffer data) {
+        return new Reader(data.duplicate().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    // True if the buffer starts with the compact format header
+    public static boolean isCompact(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == MAGIC;
+    }
+
+    // Encodes one nested record (see Writer.writeRecord)
+    public interface RecordEncoder {
+        void encode(Writer out) throws IOException;
+    }
+
+    public static final class Writer {
+        private final DataOutputStream data;
+        private final Map<Message, Integer> messages;
+
+        Writer(DataOutputStream data) {
+            this(data, new IdentityHashMap<>());
+        }
+
+        private Writer(DataOutputStream data, Map<Message, Integer> messages) {
+            this.data = data;
+            this.messages = messages;
+        }
+
+        public void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        public void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                data.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            data.writeByte((int) value);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            data.writeDouble(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            data.writeLong(value);
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            data.writeBoolean(value);
+        }
+
+        // 0 = null, otherwise byte length + 1
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            data.write(bytes);
+        }
+
+        // Already UTF-8 encoded text, written the same way as writeString
+        public void writeUtf8(byte[] bytes, int offset, int length) throws IOException {
+            writeVarInt(length + 1);
+            data.write(bytes, offset, length);
+        }
+
+        // A null list is written as empty
+        public void writeStrings(List<String> values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size());
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        // Epoch day, zigzag encoded (birth dates precede 1970); 0 = null
+        public void writeDate(LocalDate date) throws IOException {
+            writeVarLong(date == null ? 0 : zigzag(date.toEpochDay()) + 1);
+        }
+
+        public void writeTimestamp(Date date) throws IOException {
+            writeVarLong(date == null ? 0 : zigzag(date.getTime()) + 1);
+        }
+
+        // Index into the enum name table + 1; 0 = null
+        public void writeEnum(Enum<?> value) throws IOException {
+            writeVarInt(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        // First occurrence is written inline (tag 0), later ones as a back-reference
+        public void writeMessage(Message message) throws IOException {
+            Integer index = messages.get(message);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return;
+            }
+            messages.put(message, messages.size());
+            writeVarInt(0);
+            message.writeSnapshot(this);
+        }
+
+        public void writeMessages(List<Message> values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size());
+            for (Message message : values) {
+                writeMessage(message);
+            }
+        }
+
+        // Length-prefixed record, so readers can index or skip it without decoding
+        public void writeRecord(RecordEncoder encoder) throws IOException {
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            Writer nested = new Writer(new DataOutputStream(record), messages);
+            encoder.encode(nested);
+            nested.data.flush();
+            writeVarInt(record.size());
+            record.writeTo(data);
+        }
+
+        // Copy a record from an older snapshot unchanged (buffer holds exactly the record body)
+        public void writeRawRecord(ByteBuffer record) throws IOException {
+            writeVarInt(record.remaining());
+            writeRaw(record);
+        }
+
+        // Copy a count-prefixed block from an older snapshot unchanged
+        public void writeRawBlock(int count, ByteBuffer block) throws IOException {
+            writeVarInt(count);
+            writeRawRecord(block);
+        }
+
+        private void writeRaw(ByteBuffer bytes) throws IOException {
+            ByteBuffer source = bytes.duplicate();
+            byte[] chunk = new byte[Math.min(source.remaining(), 8192)];
+            while (source.hasRemaining()) {
+                int n = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, n);
+                data.write(chunk, 0, n);
+            }
+        }
+
+        private void writeEnumTables() throws IOException {
+            writeVarInt(ENUM_TYPES.length);
+            for (Class<? extends Enum<?>> type : ENUM_TYPES) {
+                writeString(type.getName());
+                Enum<?>[] constants = type.getEnumConstants();
+                writeVarInt(constants.length);
+                for (Enum<?> constant : constants) {
+                    writeString(constant.name());
+                }
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    public static final class Reader {
+        private final ByteBuffer data;
+        private final List<Message> messages;
+        private final Map<Class<?>, Enum<?>[]> enumTables;
+        private boolean enumTablesCurrent;
+
+        Reader(ByteBuffer data) {
+            this.data = data;
+            this.messages = new ArrayList<>();
+            this.enumTables = new HashMap<>();
+        }
+
+        private Reader(ByteBuffer data, Reader parent) {
+            this.data = data;
+            this.messages = parent.messages;
+            this.enumTables = parent.enumTables;
+            this.enumTablesCurrent = parent.enumTablesCurrent;
+        }
+
+        // True if stored enum indexes match this build, so records can be copied without re-encoding
+        public boolean hasCurrentEnumTables() {
+            return enumTablesCurrent;
+        }
+
+        public int position() {
+            return data.position();
+        }
+
+        // Read the length prefix of a record/block and return its body, leaving this reader after it
+        public ByteBuffer readRecordBody() throws IOException {
+            int length = readCount();
+            if (length > data.remaining()) {
+                throw new IOException("Corrupt snapshot: record runs past end of file");
+            }
+            ByteBuffer body = data.duplicate();
+            body.limit(data.position() + length);
+            data.position(data.position() + length);
+            return body.slice();
+        }
+
+        // A reader over part of the same snapshot, sharing its enum tables
+        public Reader readerFor(ByteBuffer body) {
+            return new Reader(body.duplicate(), this);
+        }
+
+        public int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value > 0xFFFFFFFFL) {
+                throw new IOException("Corrupt snapshot: varint out of range");
+            }
+            return (int) value;
+        }
+
+        // Counts and sizes - a negative value means the snapshot is damaged
+        public int readCount() throws IOException {
+            int count = readVarInt();
+            if (count < 0) {
+                throw new IOException("Corrupt snapshot: bad count " + count);
+            }
+            return count;
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = data.get() & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt snapshot: varint too long");
+        }
+
+        public double readDouble() throws IOException {
+            return data.getDouble();
+        }
+
+        public long readLong() throws IOException {
+            return data.getLong();
+        }
+
+        public boolean readBoolean() throws IOException {
+            return data.get() != 0;
+        }
+
+        public String readString() throws IOException {
+            int length = readCount();
+            if (length == 0) {
+                return null;
+            }
+            if (length - 1 > data.remaining()) {
+                throw new IOException("Corrupt snapshot: string runs past end of file");
+            }
+            byte[] bytes = new byte[length - 1];
+            data.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public ArrayList<String> readStrings() throws IOException {
+            int count = readCount();
+            ArrayList<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        public LocalDate readDate() throws IOException {
+            long value = readVarLong();
+            return value == 0 ? null : LocalDate.ofEpochDay(unzigzag(value - 1));
+        }
+
+        public Date readTimestamp() throws IOException {
+            long value = readVarLong();
+            return value == 0 ? null : new Date(unzigzag(value - 1));
+        }
+
+        public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+            int index = readVarInt();
+            if (index == 0) {
+                return null;
+            }
+            Enum<?>[] table = enumTables.get(type);
+            if (table == null || index > table.length) {
+                throw new IOException("Corrupt snapshot: bad " + type.getSimpleName() + " index " + index);
+            }
+            return type.cast(table[index - 1]);
+        }
+
+        public Message readMessage() throws IOException {
+            int tag = readVarInt();
+            if (tag == 0) {
+                Message message = Message.readSnapshot(this);
+                messages.add(message);
+                return message;
+            }
+            if (tag > messages.size()) {
+                throw new IOException("Corrupt snapshot: bad message reference " + tag);
+            }
+            return messages.get(tag - 1);
+        }
+
+        public ArrayList<Message> readMessages() throws IOException {
+            int count = readCount();
+            ArrayList<Message> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readMessage());
+            }
+            return values;
+        }
+
+        // Map the stored constant names onto this build's enums
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private void readEnumTables() throws IOException {
+            int types = readCount();
+            enumTablesCurrent = types == ENUM_TYPES.length;
+            for (int t = 0; t < types; t++) {
+                String typeName = readString();
+                int count = readCount();
+                Class<? extends Enum> type = null;
+                for (Class<? extends Enum<?>> known : ENUM_TYPES) {
+                    if (known.getName().equals(typeName)) {
+                        type = (Class<? extends Enum>) known;
+                    }
+                }
+                Enum<?>[] table = new Enum<?>[count];
+                for (int i = 0; i < count; i++) {
+                    String name = readString();
+                    if (type != null) {
+                        try {
+                            table[i] = Enum.valueOf(type, name);
+                        } catch (IllegalArgumentException e) {
+                            throw new IOException("Snapshot uses unknown " + type.getSimpleName() + " " + name);
+                        }
+                    }
+                }
+                if (type != null) {
+                    enumTables.put(type, table);
+                    enumTablesCurrent &= Arrays.equals(table, type.getEnumConstants());
+                } else {
+                    enumTablesCurrent = false;
+                }
+            }
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SnapshotWriter - Crash-safe snapshot writes with group commit.
+ *
+ * Snapshots are written to a temp file, fsynced and renamed over the target,
+ * so the file on disk is always either the old or the new snapshot. Autosaves
+ * and journal fsyncs requested within one commit window are coalesced into a
+ * single durable write performed by a background committer thread.
+ */
+public class SnapshotWriter {
+    private final File target;
+    private final TransactionJournal journal;
+    private final long commitWindowMillis;
+    private final ScheduledExecutorService committer;
+
+    private byte[] pendingSnapshot;
+    private Runnable pendingOnDurable;
+    private boolean journalDirty;
+    private ScheduledFuture<?> scheduledCommit;
+
+    public SnapshotWriter(String path, TransactionJournal journal, long commitWindowMillis) {
+        this.target = new File(path);
+        this.journal = journal;
+        this.commitWindowMillis = commitWindowMillis;
+        this.committer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-committer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Queue a snapshot; a newer submission within the window replaces an older one
+    public synchronized void submit(byte[] snapshot, Runnable onDurable) {
+        pendingSnapshot = snapshot;
+        pendingOnDurable = onDurable;
+        journalDirty = true;
+        schedule();
+    }
+
+    // Make journal records appended so far durable at the end of the current window
+    public synchronized void requestCommit() {
+        journalDirty = true;
+        schedule();
+    }
+
+    // Write a snapshot durably before returning, superseding anything pending
+    public synchronized void writeNow(byte[] snapshot, Runnable onDurable) throws IOException {
+        pendingSnapshot = snapshot;
+        pendingOnDurable = onDurable;
+        journalDirty = true;
+        commit();
+    }
+
+    // Perform any pending commit immediately
+    public synchronized void flush() throws IOException {
+        commit();
+    }
+
+    public synchronized void close() {
+        try {
+            commit();
+        } catch (IOException e) {
+            System.err.println("Save error: " + e.getMessage());
+        }
+        committer.shutdown();
+    }
+
+    private void schedule() {
+        if (scheduledCommit == null || scheduledCommit.isDone()) {
+            scheduledCommit = committer.schedule(this::commitInBackground, commitWindowMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void commitInBackground() {
+        try {
+            commit();
+        } catch (IOException e) {
+            // Leave the snapshot pending and try again next window
+            System.err.println("Save error: " + e.getMessage());
+            scheduledCommit = null;
+            schedule();
+        }
+    }
+
+    private void commit() throws IOException {
+        if (scheduledCommit != null) {
+            scheduledCommit.cancel(false);
+            scheduledCommit = null;
+        }
+        if (journalDirty) {
+            journal.sync();
+            journalDirty = false;
+        }
+        if (pendingSnapshot != null) {
+            writeAtomically(target, pendingSnapshot);
+            Runnable onDurable = pendingOnDurable;
+            pendingSnapshot = null;
+            pendingOnDurable = null;
+            if (onDurable != null) {
+                onDurable.run();
+            }
+        }
+    }
+
+    // temp file -> fsync -> atomic rename -> fsync directory
+    public static void writeAtomically(File target, byte[] data) throws IOException {
+        File dir = target.getAbsoluteFile().getParentFile();
+        File temp = new File(dir, target.getName() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+            out.flush();
+            out.getFD().sync();
+        }
+
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Persist the rename itself; not every platform allows opening a directory
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+        }
+    }
+}
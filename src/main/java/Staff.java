@@ -18,10 +18,11 @@ public class Staff implements Serializable {
         this.inbox = new java.util.ArrayList<>();
     }
 
-    public void receiveMessage(Message message) {
+    public synchronized void receiveMessage(Message message) {
         if (this.inbox == null)
             this.inbox = new java.util.ArrayList<>();
         this.inbox.add(message);
+        ChangeTracker.structureChanged();
     }
 
     public java.util.List<Message> getInbox() {
@@ -54,4 +55,29 @@ public class Staff implements Serializable {
     public String getTypeDisplay() {
         return role.getDisplayName();
     }
+
+    // Snapshot decoding - fields are filled in by readSnapshot
+    private Staff() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec)
+    synchronized void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(staffId);
+        out.writeString(name);
+        out.writeString(username);
+        out.writeString(password);
+        out.writeEnum(role);
+        out.writeMessages(getInbox());
+    }
+
+    static Staff readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        Staff staff = new Staff();
+        staff.staffId = in.readString();
+        staff.name = in.readString();
+        staff.username = in.readString();
+        staff.password = in.readString();
+        staff.role = in.readEnum(StaffRole.class);
+        staff.inbox = in.readMessages();
+        return staff;
+    }
 }
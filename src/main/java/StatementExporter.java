@@ -0,0 +1,336 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Formatter;
+
+/**
+ * StatementExporter - Writes an account's statement to a file, streaming.
+ *
+ * Entries timed in [from, to) - null for an open end - are read from the
+ * account a batch at a time (an archived segment at a time in the cold tier)
+ * and each row is encoded straight into one direct buffer that is written to
+ * a FileChannel whenever it fills. Memory use does not grow with the length of
+ * the history, so multi-million-entry corporate accounts export the same way
+ * as any other.
+ *
+ * CSV gives one row per entry with its full description; TEXT is the
+ * detailed statement layout without ANSI codes, with the period summary
+ * after the rows since it is only known once they have been read. The file
+ * appears under its name only once complete (temp file + rename).
+ */
+public final class StatementExporter {
+    public enum Format {
+        CSV("csv"), TEXT("txt");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // Exports go here unless a file is given (-Dbank.exportDir=...)
+    public static final File DIRECTORY = new File(System.getProperty("bank.exportDir", "statements"));
+
+    private static final int BATCH_SIZE = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_CHARS = 16 * 1024;
+    private static final String CSV_HEADER = "Date,Type,Description,Remark,Counterparty,Credit,Debit,Balance";
+    private static final String RULE = "───────────────────────────────────────────────────────────────────────────";
+    private static final String DOUBLE_RULE =
+            "═══════════════════════════════════════════════════════════════════════════";
+    private static final String HEADING = "Date          Description          Credit        Debit      Balance";
+
+    private final FileChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder text = new StringBuilder(FLUSH_CHARS + 1024);
+    private final Formatter formatter = new Formatter(text);
+
+    private StatementExporter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Default file for an export: statements/<account>_<yyyyMMdd_HHmmss>.<extension>
+    public static File defaultFile(BankAccount account, Format format) {
+        String stamp = DateFormats.timestamp().replace("-", "").replace(":", "").replace(' ', '_');
+        return new File(DIRECTORY, account.getAccountNumber() + "_" + stamp + "." + format.getExtension());
+    }
+
+    // Writes the statement and returns the number of entries in it
+    public static int export(BankAccount account, String customerAddress, LocalDateTime from, LocalDateTime to,
+            Format format, File file) throws IOException {
+        File target = file.getAbsoluteFile();
+        File directory = target.getParentFile();
+        // Parallel exports may create it at the same time
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File temp = new File(directory, target.getName() + ".tmp");
+        int count;
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            StatementExporter exporter = new StatementExporter(channel);
+            count = exporter.write(account, customerAddress, from, to, format);
+            exporter.finish();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return count;
+    }
+
+    private int write(BankAccount account, String customerAddress, LocalDateTime from, LocalDateTime to,
+            Format format) throws IOException {
+        int first;
+        int end;
+        double closingBalance;
+        // Range and balance as of the same moment; entries appended later are not included
+        synchronized (account) {
+            end = to != null ? account.historyIndexAtOrAfter(to) : account.getTransactionCount();
+            first = Math.min(end, from != null ? account.historyIndexAtOrAfter(from) : 0);
+            closingBalance = account.getBalance();
+        }
+
+        if (format == Format.CSV) {
+            text.append(CSV_HEADER).append('\n');
+        } else {
+            appendHeader(account, customerAddress, from, to);
+        }
+
+        double totalCredits = 0;
+        double totalDebits = 0;
+        for (int start = first; start < end;) {
+            int batchEnd = account.historyBatchEnd(start, end, BATCH_SIZE);
+            TransactionLedger page = account.historyPage(start, batchEnd);
+            for (int i = 0; i < page.size(); i++) {
+                TransactionEntry.Direction direction = page.directionAt(i);
+                if (direction == TransactionEntry.Direction.CREDIT) {
+                    totalCredits += page.amountAt(i);
+                } else if (direction == TransactionEntry.Direction.DEBIT) {
+                    totalDebits += page.amountAt(i);
+                }
+                if (format == Format.CSV) {
+                    appendCsvRow(page, i);
+                } else {
+                    appendTextRow(page, i);
+                }
+                if (text.length() >= FLUSH_CHARS) {
+                    drain(false);
+                }
+            }
+            start = batchEnd;
+        }
+
+        if (format == Format.TEXT) {
+            appendSummary(account, end - first, totalCredits, totalDebits, to == null ? closingBalance : null);
+        }
+        return end - first;
+    }
+
+    private void appendHeader(BankAccount account, String customerAddress, LocalDateTime from, LocalDateTime to) {
+        String today = DateFormats.STATEMENT_DATE.format(LocalDate.now());
+        line("BANK OF FUTURE  Digital Banking Division");
+        line("");
+        line("231 Valley Farms Street            STATEMENT OF ACCOUNT");
+        line("Mumbai, Maharashtra 400001");
+        line("bankoffuture@domain.com");
+        line("");
+        line("Account Number:      " + account.getAccountNumber());
+        line("IFSC Code:           " + account.getIfscCode());
+        line("Statement Date:      " + today);
+        line("Period Covered:      " + (from != null ? DateFormats.STATEMENT_DATE.format(from) : "Account opening")
+                + "  to  " + (to != null ? DateFormats.STATEMENT_DATE.format(to.minusSeconds(1)) : today));
+        line("");
+        line(account.getAccountHolderName());
+        line(customerAddress);
+        line("");
+        line(DOUBLE_RULE);
+        line("TRANSACTIONS");
+        line(DOUBLE_RULE);
+        line(HEADING);
+        line(RULE);
+    }
+
+    private void appendSummary(BankAccount account, int count, double totalCredits, double totalDebits,
+            Double closingBalance) {
+        line(RULE);
+        line("");
+        line("ACCOUNT SUMMARY");
+        line("");
+        if (closingBalance != null) {
+            // Opening Balance + Credits - Debits = Closing Balance
+            formatter.format("Opening Balance:%59s\n", String.format("%,.2f", closingBalance - totalCredits
+                    + totalDebits));
+        }
+        formatter.format("Total Credit Amount:%55s\n", String.format("%,.2f", totalCredits));
+        formatter.format("Total Debit Amount:%56s\n", String.format("%,.2f", totalDebits));
+        if (closingBalance != null) {
+            formatter.format("Closing Balance:%59s\n", String.format("%,.2f", closingBalance));
+        }
+        line("");
+        formatter.format("Account Type:%62s\n", account.getAccountType().getDisplayName());
+        formatter.format("Number of Transactions:%52d\n", count);
+        line("");
+        line(DOUBLE_RULE);
+        line("");
+        line("Statement generated on: " + DateFormats.GENERATED_AT.format(LocalDateTime.now()));
+        line("This is a computer-generated statement and does not require a signature.");
+    }
+
+    // Date(12) + gap(2) + Description(20) + Credit(13) + gap + Debit(12) + gap + Balance(13)
+    private void appendTextRow(TransactionLedger page, int i) {
+        LocalDateTime time = page.timestampAt(i);
+        int start = text.length();
+        if (time != null) {
+            DateFormats.STATEMENT_DATE.formatTo(time, text);
+        } else {
+            text.append("mm/dd/yyyy");
+        }
+        pad(start, 12);
+        text.append("  ");
+        start = text.length();
+        text.append(BankAccount.compressDescription(page, i));
+        pad(start, 20);
+
+        TransactionEntry.Direction direction = page.directionAt(i);
+        double amount = page.amountAt(i);
+        formatter.format("%,13.2f %,12.2f ", direction == TransactionEntry.Direction.CREDIT ? amount : 0.0,
+                direction == TransactionEntry.Direction.DEBIT ? amount : 0.0);
+        if (page.hasBalanceAt(i)) {
+            formatter.format("%,13.2f", page.balanceAfterAt(i));
+        } else {
+            text.append("            -");
+        }
+        text.append('\n');
+    }
+
+    private void appendCsvRow(TransactionLedger page, int i) {
+        long time = page.timeAt(i);
+        if (time != TransactionLedger.NO_TIME) {
+            text.append(DateFormats.timestamp(time));
+        }
+        text.append(',').append(page.typeAt(i).name()).append(',');
+        csvField(page.descriptionAt(i));
+        text.append(',');
+        csvField(page.remarkAt(i));
+        text.append(',');
+        csvField(page.counterpartyAt(i));
+        TransactionEntry.Direction direction = page.directionAt(i);
+        text.append(',');
+        if (direction == TransactionEntry.Direction.CREDIT) {
+            formatter.format("%.2f", page.amountAt(i));
+        }
+        text.append(',');
+        if (direction == TransactionEntry.Direction.DEBIT) {
+            formatter.format("%.2f", page.amountAt(i));
+        }
+        text.append(',');
+        if (page.hasBalanceAt(i)) {
+            formatter.format("%.2f", page.balanceAfterAt(i));
+        }
+        text.append('\n');
+    }
+
+    // RFC 4180: quoted only when it holds a comma, quote or line break. Text a spreadsheet would
+    // take for a formula gets a leading ' so it opens as plain text.
+    private void csvField(String value) {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            text.append(value);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                text.append('"');
+            }
+            text.append(c);
+        }
+        text.append('"');
+    }
+
+    private void line(String line) {
+        text.append(line).append('\n');
+    }
+
+    // Pad or cut the text appended since 'start' to exactly 'width' characters
+    private void pad(int start, int width) {
+        int length = text.length() - start;
+        if (length > width) {
+            text.setLength(start + width);
+        }
+        for (int n = length; n < width; n++) {
+            text.append(' ');
+        }
+    }
+
+    // Encode the pending text into the buffer, writing the buffer out each time it fills
+    private void drain(boolean endOfInput) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                writeBuffer();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+        // Anything left is half a surrogate pair, completed by the next row
+        text.delete(0, chars.position());
+    }
+
+    private void finish() throws IOException {
+        drain(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            writeBuffer();
+        }
+        writeBuffer();
+    }
+
+    private void writeBuffer() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
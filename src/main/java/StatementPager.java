@@ -0,0 +1,191 @@
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.Formatter;
+
+/**
+ * StatementPager - Page-at-a-time statement view over an account's history.
+ *
+ * A cursor over history indexes, starting at the newest page. Each page
+ * fetches only its own entries from the account (archived segments are read
+ * only when the page reaches them) and is rendered into one reused
+ * StringBuilder. The column layout is fixed, so rows are padded by known
+ * widths rather than by measuring ANSI-decorated strings, and the first page
+ * costs the same whatever the size of the history.
+ *
+ * Optionally limited to entries timed in [from, to) (see
+ * BankAccount.getTransactionEntries).
+ */
+public class StatementPager {
+    private static final String RESET = "\u001B[0m";
+    private static final String BOLD = "\u001B[1m";
+    private static final String DIM = "\u001B[2m";
+    private static final String WHITE = "\u001B[37m";
+    private static final String BRIGHT_GREEN = "\u001B[92m";
+    private static final String BRIGHT_RED = "\u001B[91m";
+    private static final String BRIGHT_CYAN = "\u001B[96m";
+
+    // Columns: Date(12) + gap(2) + Description(20) + Credit(13) + gap + Debit(12) + gap + Balance(13)
+    private static final int DATE_WIDTH = 12;
+    private static final int DESCRIPTION_WIDTH = 20;
+    private static final int LINE_WIDTH = 75;
+    private static final String HEADING = "Date          Description          Credit        Debit      Balance";
+    private static final String HEADER = BRIGHT_CYAN + HEADING + RESET + spaces(LINE_WIDTH - HEADING.length())
+            + RESET;
+    private static final String RULE = "───────────────────────────────────────────────────────────────────────────"
+            + RESET;
+    private static final String NO_AMOUNT = spaces(9) + "0.00";
+    private static final String NO_BALANCE = spaces(12) + "-";
+
+    private final BankAccount account;
+    private final int pageSize;
+    private final int first; // History indexes covered by this view: [first, end)
+    private final int end;
+    private int pageEnd; // The current page is [pageStart(), pageEnd); pages are counted back from end
+    private final StringBuilder out = new StringBuilder(128 * 32);
+    private final Formatter formatter = new Formatter(out);
+
+    public StatementPager(BankAccount account, int pageSize) {
+        this(account, null, null, pageSize);
+    }
+
+    public StatementPager(BankAccount account, LocalDateTime from, LocalDateTime to, int pageSize) {
+        this.account = account;
+        this.pageSize = Math.max(1, pageSize);
+        this.end = to != null ? account.historyIndexAtOrAfter(to) : account.getTransactionCount();
+        this.first = Math.min(end, from != null ? account.historyIndexAtOrAfter(from) : 0);
+        this.pageEnd = end;
+    }
+
+    public int getEntryCount() {
+        return end - first;
+    }
+
+    // 1 = newest page
+    public int getPageNumber() {
+        return (end - pageEnd) / pageSize + 1;
+    }
+
+    public int getPageCount() {
+        return Math.max(1, (end - first + pageSize - 1) / pageSize);
+    }
+
+    public boolean hasOlder() {
+        return pageStart() > first;
+    }
+
+    public boolean hasNewer() {
+        return pageEnd < end;
+    }
+
+    // The oldest page is the short one, so no entry is shown on two pages
+    public void older() {
+        if (hasOlder()) {
+            pageEnd = pageStart();
+        }
+    }
+
+    public void newer() {
+        if (hasNewer()) {
+            pageEnd = Math.min(end, pageEnd + pageSize);
+        }
+    }
+
+    private int pageStart() {
+        return Math.max(first, pageEnd - pageSize);
+    }
+
+    // Header, the current page oldest first, and a position line
+    public void print(PrintStream stream) {
+        out.setLength(0);
+        out.append(HEADER).append('\n').append(RULE).append('\n');
+        appendPage();
+        out.append(RULE).append('\n');
+        out.append(DIM).append("Page ").append(getPageNumber()).append(" of ").append(getPageCount());
+        if (end > first) {
+            out.append("  -  entries ").append(pageStart() - first + 1).append('-')
+                    .append(pageEnd - first).append(" of ").append(getEntryCount());
+        }
+        out.append(RESET).append('\n');
+        stream.print(out);
+    }
+
+    // Just the rows of the current page
+    public void printRows(PrintStream stream) {
+        out.setLength(0);
+        appendPage();
+        stream.print(out);
+    }
+
+    private void appendPage() {
+        int pageStart = pageStart();
+        if (pageEnd <= pageStart) {
+            out.append(DIM).append("No transactions recorded").append(RESET).append(spaces(LINE_WIDTH - 24))
+                    .append(RESET).append('\n');
+            return;
+        }
+        TransactionLedger page = account.historyPage(pageStart, pageEnd);
+        for (int i = 0; i < page.size(); i++) {
+            appendRow(page, i);
+        }
+    }
+
+    private void appendRow(TransactionLedger page, int i) {
+        LocalDateTime time = page.timestampAt(i);
+        out.append(WHITE);
+        int start = out.length();
+        if (time != null) {
+            DateFormats.STATEMENT_DATE.formatTo(time, out);
+        } else {
+            out.append("mm/dd/yyyy");
+        }
+        pad(start, DATE_WIDTH);
+        out.append(RESET).append("  ").append(DIM);
+
+        start = out.length();
+        out.append(BankAccount.compressDescription(page, i));
+        pad(start, DESCRIPTION_WIDTH);
+        out.append(RESET);
+
+        TransactionEntry.Direction direction = page.directionAt(i);
+        double amount = page.amountAt(i);
+        if (direction == TransactionEntry.Direction.CREDIT && amount > 0) {
+            out.append(BRIGHT_GREEN);
+            formatter.format("%,13.2f", amount);
+        } else {
+            out.append(NO_AMOUNT);
+        }
+        out.append(RESET).append(' ');
+        if (direction == TransactionEntry.Direction.DEBIT && amount > 0) {
+            out.append(BRIGHT_RED);
+            formatter.format("%,12.2f", amount);
+        } else {
+            out.append(NO_AMOUNT, 1, NO_AMOUNT.length());
+        }
+        out.append(RESET).append(' ').append(BOLD).append(WHITE);
+        if (page.hasBalanceAt(i)) {
+            formatter.format("%,13.2f", page.balanceAfterAt(i));
+        } else {
+            out.append(NO_BALANCE);
+        }
+        out.append(RESET).append(' ').append(RESET).append('\n');
+    }
+
+    // Pad or cut the text appended since 'start' to exactly 'width' characters
+    private void pad(int start, int width) {
+        int length = out.length() - start;
+        if (length > width) {
+            out.setLength(start + width);
+        }
+        for (int n = length; n < width; n++) {
+            out.append(' ');
+        }
+    }
+
+    private static String spaces(int count) {
+        StringBuilder spaces = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            spaces.append(' ');
+        }
+        return spaces.toString();
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StatementRun - Month-end statements for every active account, in parallel.
+ *
+ * A fixed pool of workers (one per core unless -Dbank.statementWorkers=...)
+ * pulls account numbers from a shared cursor and exports each account's
+ * statement for the month to statements/&lt;yyyy-MM&gt;/&lt;account&gt;.&lt;ext&gt; with
+ * StatementExporter. Stored accounts are decoded by the worker that takes
+ * them, so no thread walks the whole bank up front. Progress is printed about
+ * once a second.
+ *
+ * A statement file only appears under its name once complete. When it was
+ * written after the month had ended, a &lt;account&gt;.&lt;ext&gt;.done marker is
+ * put next to it, so a run that was interrupted is resumed by running it
+ * again: accounts with a marker are skipped. A statement written while the
+ * month was still open has no marker and is written again by the next run.
+ */
+public class StatementRun {
+    private static final String RESET = "\u001B[0m";
+    private static final String DIM = "\u001B[2m";
+    private static final String CYAN = "\u001B[36m";
+
+    private static final int WORKERS = Integer.getInteger("bank.statementWorkers",
+            Runtime.getRuntime().availableProcessors());
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    // Outcome of a run
+    public static final class Result {
+        public final int generated;
+        public final int skipped; // Already generated by an earlier run after the month ended
+        public final List<String> failed; // "ACC1234: reason"
+        public final long elapsedMillis;
+        public final File directory;
+
+        Result(int generated, int skipped, List<String> failed, long elapsedMillis, File directory) {
+            this.generated = generated;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+            this.directory = directory;
+        }
+    }
+
+    private final Bank bank;
+    private final YearMonth month;
+    private final StatementExporter.Format format;
+    private final File directory;
+    private final List<String> accountNumbers;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+    private StatementRun(Bank bank, YearMonth month, StatementExporter.Format format) {
+        this.bank = bank;
+        this.month = month;
+        this.format = format;
+        this.directory = new File(StatementExporter.DIRECTORY, month.toString());
+        this.accountNumbers = bank.getAccountNumbers();
+    }
+
+    public static Result run(Bank bank, YearMonth month, StatementExporter.Format format) {
+        return new StatementRun(bank, month, format).run();
+    }
+
+    private Result run() {
+        long start = System.currentTimeMillis();
+        int workers = Math.max(1, Math.min(WORKERS, accountNumbers.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "statement-run");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::work);
+        }
+        pool.shutdown();
+
+        try {
+            while (!pool.awaitTermination(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                printProgress();
+            }
+        } catch (InterruptedException e) {
+            // Workers stop after their current account; files already written count for the next run
+            pool.shutdownNow();
+            next.set(accountNumbers.size());
+            Thread.currentThread().interrupt();
+        }
+        printProgress();
+        System.out.println();
+
+        List<String> failures;
+        synchronized (failed) {
+            failures = new ArrayList<>(failed);
+        }
+        Collections.sort(failures);
+        return new Result(generated.get(), skipped.get(), failures, System.currentTimeMillis() - start, directory);
+    }
+
+    // One worker: takes the next account until none are left
+    private void work() {
+        int index;
+        while ((index = next.getAndIncrement()) < accountNumbers.size()) {
+            String accountNumber = accountNumbers.get(index);
+            try {
+                generate(accountNumber);
+            } catch (IOException | RuntimeException e) {
+                failed.add(accountNumber + ": " + e.getMessage());
+            } finally {
+                done.incrementAndGet();
+            }
+        }
+    }
+
+    private void generate(String accountNumber) throws IOException {
+        File file = new File(directory, accountNumber + "." + format.getExtension());
+        File marker = new File(directory, file.getName() + ".done");
+        if (marker.exists()) {
+            skipped.incrementAndGet();
+            return;
+        }
+        BankAccount account = bank.getAccount(accountNumber);
+        if (account == null || !account.isActive()) {
+            return;
+        }
+        Customer customer = account.getCustomerId() != null ? bank.getCustomer(account.getCustomerId()) : null;
+        String address = customer != null ? customer.getAddress() : null;
+        if (address == null || address.trim().isEmpty()) {
+            address = "Address on file";
+        }
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        // Only a month that was over before the export began can have no entries still to come
+        boolean closed = BankClock.nowLocalSeconds() >= end.toEpochSecond(ZoneOffset.UTC);
+        StatementExporter.export(account, address, month.atDay(1).atStartOfDay(), end, format, file);
+        if (closed) {
+            new FileOutputStream(marker).close();
+        }
+        generated.incrementAndGet();
+    }
+
+    private void printProgress() {
+        int total = accountNumbers.size();
+        int count = Math.min(done.get(), total);
+        int percent = total == 0 ? 100 : (int) (count * 100L / total);
+        System.out.print("\r  " + CYAN + "Statements: " + RESET + count + "/" + total + " (" + percent + "%)" + DIM
+                + "  generated " + generated.get() + ", skipped " + skipped.get() + ", failed " + failed.size()
+                + RESET);
+    }
+}
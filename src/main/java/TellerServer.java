@@ -0,0 +1,514 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TellerServer - Line-protocol teller endpoint over one shared Bank.
+ *
+ * Started with "BankingApplication --server [port]" (default 7070,
+ * -Dbank.serverPort=...); it listens on the loopback interface only. Every
+ * connection is a session with its own state - the logged-in customer or
+ * staff member and the selected account - on a virtual thread when the JVM
+ * has them (Java 21+), otherwise on a bounded pool of platform threads
+ * (-Dbank.maxSessions=..., 200 by default) with a short wait queue
+ * (-Dbank.sessionQueue=..., 50); connections beyond that are answered with
+ * "ERR Server busy" and closed. Sessions share the Bank; account
+ * operations synchronize per account and transfers go through TransferEngine.
+ *
+ * Each request is one line; each response is zero or more data lines, each
+ * starting with two spaces, ended by a line starting with "OK" or "ERR".
+ *
+ *   LOGIN <customer id | mobile> <password>   STAFF <username> <password>
+ *   ACCOUNTS                                  USE <account>
+ *   BALANCE                                   HISTORY [count]
+ *   DEPOSIT <amount>                          WITHDRAW <amount>
+ *   TRANSFER <to account> <amount> [remark]
+ *   LOOKUP <account>  (staff)                 FREEZE | UNFREEZE <account>  (staff, level 2+)
+ *   LOGOUT    HELP    QUIT
+ */
+public class TellerServer {
+    private static final int DEFAULT_PORT = Integer.getInteger("bank.serverPort", 7070);
+    private static final int MAX_PLATFORM_SESSIONS = Integer.getInteger("bank.maxSessions", 200);
+    // Connections waiting for a platform session thread
+    private static final int SESSION_QUEUE = Integer.getInteger("bank.sessionQueue", 50);
+    // Idle sessions are closed after this long (-Dbank.sessionIdleMinutes=...)
+    private static final int IDLE_TIMEOUT_MS = (int) Math.min(Integer.MAX_VALUE,
+            Long.getLong("bank.sessionIdleMinutes", 15L) * 60 * 1000);
+    private static final int MAX_HISTORY_LINES = 100;
+
+    private final Bank bank;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final boolean virtualThreads;
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public TellerServer(Bank bank, int port) throws IOException {
+        this.bank = bank;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        ExecutorService executor = virtualThreadExecutor();
+        this.virtualThreads = executor != null;
+        this.sessions = executor != null ? executor
+                : new ThreadPoolExecutor(MAX_PLATFORM_SESSIONS, MAX_PLATFORM_SESSIONS, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(Math.max(1, SESSION_QUEUE)), r -> {
+                            Thread t = new Thread(r, "teller-session");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    public static int defaultPort() {
+        return DEFAULT_PORT;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() when running on Java 21+, else null
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getOpenSessions() {
+        return openSessions.get();
+    }
+
+    // Accept connections until close(); each one is handed to its own session thread
+    public void serve() {
+        System.out.println("Teller server listening on " + serverSocket.getInetAddress().getHostAddress() + ":"
+                + getPort() + (virtualThreads ? " (virtual threads)"
+                        : " (" + MAX_PLATFORM_SESSIONS + " session threads)"));
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                try {
+                    sessions.execute(() -> runSession(socket));
+                } catch (RejectedExecutionException e) {
+                    refuse(socket);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Teller server: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        sessions.shutdownNow();
+    }
+
+    // Every session thread is taken and the queue is full - say so rather than leave the client hanging
+    private static void refuse(Socket socket) {
+        try (Socket s = socket) {
+            s.getOutputStream().write("ERR Server busy - try again later\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Client already gone
+        }
+    }
+
+    private void runSession(Socket socket) {
+        openSessions.incrementAndGet();
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter out = new PrintWriter(
+                        new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), false)) {
+            s.setSoTimeout(IDLE_TIMEOUT_MS);
+            Session session = new Session(out);
+            out.print("OK Bank of Future teller service - HELP for commands\n");
+            out.flush();
+            String line;
+            while ((line = in.readLine()) != null) {
+                boolean open = session.handle(line.trim());
+                out.flush();
+                if (!open) {
+                    break;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // Idle session closed
+        } catch (SocketException e) {
+            // Client went away
+        } catch (IOException e) {
+            System.err.println("Teller session failed: " + e.getMessage());
+        } finally {
+            openSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * State of one connection; only ever touched by its own thread.
+     */
+    private final class Session {
+        private final PrintWriter out;
+        private Customer customer;
+        private BankAccount account;
+        private Staff staff;
+        private String refusal; // Why the last deposit, withdrawal or transfer was refused
+
+        Session(PrintWriter out) {
+            this.out = out;
+        }
+
+        // False once the session should end
+        boolean handle(String line) {
+            if (line.isEmpty()) {
+                return true;
+            }
+            String[] words = line.split("\\s+");
+            String command = words[0].toUpperCase();
+            try {
+                switch (command) {
+                    case "HELP":
+                        help();
+                        break;
+                    case "LOGIN":
+                        login(words);
+                        break;
+                    case "STAFF":
+                        staffLogin(words);
+                        break;
+                    case "LOGOUT":
+                        customer = null;
+                        account = null;
+                        staff = null;
+                        ok("Logged out");
+                        break;
+                    case "QUIT":
+                        ok("Goodbye");
+                        return false;
+                    case "ACCOUNTS":
+                        accounts();
+                        break;
+                    case "USE":
+                        use(words);
+                        break;
+                    case "BALANCE":
+                        if (requireAccount()) {
+                            ok(account.getAccountNumber() + " " + money(account.getBalance()));
+                        }
+                        break;
+                    case "HISTORY":
+                        history(words);
+                        break;
+                    case "DEPOSIT":
+                        deposit(words);
+                        break;
+                    case "WITHDRAW":
+                        withdraw(words);
+                        break;
+                    case "TRANSFER":
+                        transfer(line);
+                        break;
+                    case "LOOKUP":
+                        lookup(words);
+                        break;
+                    case "FREEZE":
+                    case "UNFREEZE":
+                        freeze(words, command.equals("FREEZE"));
+                        break;
+                    default:
+                        error("Unknown command " + words[0] + " - HELP for commands");
+                }
+            } catch (RuntimeException e) {
+                error("Request failed: " + e.getMessage());
+            }
+            return true;
+        }
+
+        private void help() {
+            data("LOGIN <customer id | mobile> <password>   STAFF <username> <password>");
+            data("ACCOUNTS   USE <account>   BALANCE   HISTORY [count]");
+            data("DEPOSIT <amount>   WITHDRAW <amount>   TRANSFER <to account> <amount> [remark]");
+            data("LOOKUP <account>   FREEZE <account>   UNFREEZE <account>   (staff)");
+            data("LOGOUT   QUIT");
+            ok("");
+        }
+
+        private void login(String[] words) {
+            if (words.length != 3) {
+                error("Usage: LOGIN <customer id | mobile> <password>");
+                return;
+            }
+            Customer found = bank.findCustomer(words[1]);
+            if (found == null || !found.validatePassword(words[2])) {
+                error(found != null && found.isLocked() ? "Login locked - contact the bank" : "Invalid credentials");
+                return;
+            }
+            customer = found;
+            staff = null;
+            List<String> numbers = found.getAccountNumbers();
+            account = numbers.isEmpty() ? null : bank.getAccount(numbers.get(0));
+            ok("Welcome " + found.getCustomerName()
+                    + (account != null ? " - using " + account.getAccountNumber() : " - no accounts"));
+        }
+
+        private void staffLogin(String[] words) {
+            if (words.length != 3) {
+                error("Usage: STAFF <username> <password>");
+                return;
+            }
+            Staff found = bank.authenticateStaff(words[1], words[2]);
+            if (found == null) {
+                error("Invalid credentials");
+                return;
+            }
+            staff = found;
+            customer = null;
+            account = null;
+            ok("Welcome " + found.getName() + " (" + found.getRole().getDisplayName() + ")");
+        }
+
+        private void accounts() {
+            if (customer == null) {
+                error("Not logged in");
+                return;
+            }
+            for (String number : customer.getAccountNumbers()) {
+                BankAccount a = bank.getAccount(number);
+                if (a != null) {
+                    data(number + "  " + a.getAccountType().getDisplayName() + "  " + money(a.getBalance())
+                            + (a.isFrozen() ? "  FROZEN" : "") + (a.isActive() ? "" : "  CLOSED"));
+                }
+            }
+            ok(customer.getAccountNumbers().size() + " accounts");
+        }
+
+        private void use(String[] words) {
+            if (customer == null) {
+                error("Not logged in");
+            } else if (words.length != 2 || !customer.getAccountNumbers().contains(words[1])) {
+                error("Not one of your accounts");
+            } else {
+                account = bank.getAccount(words[1]);
+                ok("Using " + account.getAccountNumber());
+            }
+        }
+
+        private void history(String[] words) {
+            if (!requireAccount()) {
+                return;
+            }
+            int count = 10;
+            if (words.length > 1) {
+                try {
+                    count = Math.max(1, Math.min(MAX_HISTORY_LINES, Integer.parseInt(words[1])));
+                } catch (NumberFormatException e) {
+                    error("Usage: HISTORY [count]");
+                    return;
+                }
+            }
+            int total = account.getTransactionCount();
+            List<String> lines = account.getTransactionLines(Math.max(0, total - count));
+            for (String entry : lines) {
+                data(entry);
+            }
+            ok(lines.size() + " of " + total + " entries");
+        }
+
+        private void deposit(String[] words) {
+            Double amount = amount(words, 1, "DEPOSIT <amount>");
+            if (amount == null || !requireAccount()) {
+                return;
+            }
+            refusal = null;
+            if (account.deposit(amount, this::refused)) {
+                PersistenceManager.recordTransaction(bank, account);
+                ok("Deposited " + money(amount) + " - balance " + money(account.getBalance()));
+            } else {
+                error("Deposit refused" + refusalReason());
+            }
+        }
+
+        private void withdraw(String[] words) {
+            Double amount = amount(words, 1, "WITHDRAW <amount>");
+            if (amount == null || !requireAccount() || !requireOpen(account)) {
+                return;
+            }
+            refusal = null;
+            if (account.withdraw(amount, this::refused)) {
+                PersistenceManager.recordTransaction(bank, account);
+                ok("Withdrawn " + money(amount) + " - balance " + money(account.getBalance()));
+            } else {
+                error("Withdrawal refused" + refusalReason());
+            }
+        }
+
+        private void transfer(String line) {
+            // The remark is the rest of the line, spaces included
+            String[] words = line.trim().split("\\s+", 4);
+            if (words.length < 3) {
+                error("Usage: TRANSFER <to account> <amount> [remark]");
+                return;
+            }
+            Double amount = amount(words, 2, "TRANSFER <to account> <amount> [remark]");
+            if (amount == null || !requireAccount() || !requireOpen(account)) {
+                return;
+            }
+            BankAccount to = bank.getAccount(words[1]);
+            if (to == null) {
+                error("No such account " + words[1]);
+                return;
+            }
+            String remark = words.length > 3 ? words[3] : null;
+            refusal = null;
+            if (TransferEngine.transfer(account, to, amount, remark, this::refused)) {
+                PersistenceManager.recordTransaction(bank, account, to);
+                ok("Transferred " + money(amount) + " to " + to.getAccountNumber() + " - balance "
+                        + money(account.getBalance()));
+            } else {
+                error("Transfer refused" + refusalReason());
+            }
+        }
+
+        // Collects refusal reasons from the account and TransferEngine for the ERR line
+        private void refused(String reason) {
+            refusal = refusal == null ? reason : refusal + " " + reason;
+        }
+
+        private String refusalReason() {
+            return refusal == null ? "" : " - " + refusal;
+        }
+
+        private void lookup(String[] words) {
+            if (!requireStaff(1) || words.length != 2) {
+                if (staff != null) {
+                    error("Usage: LOOKUP <account>");
+                }
+                return;
+            }
+            BankAccount a = bank.getAccount(words[1]);
+            if (a == null) {
+                error("No such account " + words[1]);
+                return;
+            }
+            data("Holder:  " + a.getAccountHolderName() + " (" + a.getCustomerId() + ")");
+            data("Type:    " + a.getAccountType().getDisplayName());
+            data("Balance: " + money(a.getBalance()));
+            data("Status:  " + (a.isActive() ? (a.isFrozen() ? "Frozen" : "Active") : "Closed"));
+            ok(a.getAccountNumber());
+        }
+
+        private void freeze(String[] words, boolean freeze) {
+            if (!requireStaff(2) || words.length != 2) {
+                if (staff != null && staff.getRole().getLevel() >= 2) {
+                    error("Usage: " + (freeze ? "FREEZE" : "UNFREEZE") + " <account>");
+                }
+                return;
+            }
+            BankAccount a = bank.getAccount(words[1]);
+            if (a == null) {
+                error("No such account " + words[1]);
+                return;
+            }
+            if (freeze) {
+                a.freezeAccount();
+            } else {
+                a.unfreezeAccount();
+            }
+            PersistenceManager.recordTransaction(bank, a);
+            ok(a.getAccountNumber() + (a.isFrozen() ? " frozen" : " active"));
+        }
+
+        private boolean requireAccount() {
+            if (customer == null) {
+                error("Not logged in");
+                return false;
+            }
+            if (account == null) {
+                error("No account selected - USE <account>");
+                return false;
+            }
+            return true;
+        }
+
+        // Closed accounts can no longer send money, as on the console
+        private boolean requireOpen(BankAccount a) {
+            if (!a.isActive()) {
+                error("Account " + a.getAccountNumber() + " is closed");
+                return false;
+            }
+            return true;
+        }
+
+        private boolean requireStaff(int level) {
+            if (staff == null) {
+                error("Staff login required");
+                return false;
+            }
+            if (staff.getRole().getLevel() < level) {
+                error("Access denied");
+                return false;
+            }
+            return true;
+        }
+
+        // A positive, finite amount from words[index], or null after reporting the usage
+        private Double amount(String[] words, int index, String usage) {
+            if (words.length <= index) {
+                error("Usage: " + usage);
+                return null;
+            }
+            try {
+                double amount = Double.parseDouble(words[index]);
+                if (Money.isValidAmount(amount)) {
+                    return amount;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            error("Invalid amount " + words[index]);
+            return null;
+        }
+
+        private void data(String text) {
+            out.print("  ");
+            out.print(text);
+            out.print('\n');
+        }
+
+        private void ok(String message) {
+            out.print(message.isEmpty() ? "OK\n" : "OK " + message + "\n");
+        }
+
+        private void error(String message) {
+            out.print("ERR " + message + "\n");
+        }
+    }
+
+    private static String money(double amount) {
+        return "₹" + String.format("%,.2f", amount);
+    }
+}
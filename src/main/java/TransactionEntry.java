@@ -0,0 +1,146 @@
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * TransactionEntry - One history line of a BankAccount split into typed fields.
+ *
+ * History lines look like "[yyyy-MM-dd HH:mm:ss] description | Remark: text".
+ * Amount and balance are taken from the first "₹" figure and the
+ * "New Balance: ₹" figure; lines without them (name changes, freezes, ...)
+ * have neither. toLine() gives back the exact line the entry was parsed from.
+ */
+public class TransactionEntry {
+    // Which statement column the amount belongs in
+    public enum Direction {
+        CREDIT, DEBIT, INFO
+    }
+
+    static final String REMARK = " | Remark: ";
+    private static final String NEW_BALANCE = "New Balance: ₹";
+    private static final String[] COUNTERPARTY_MARKERS = { "sent to ", "received from ", "Received AMC from " };
+
+    private final LocalDateTime timestamp;
+    private final String description;
+    private final String remark;
+    private final Double amount;
+    private final TransactionType type;
+    private final Double balanceAfter;
+    private final String counterparty;
+
+    TransactionEntry(LocalDateTime timestamp, String description, String remark, Double amount,
+            TransactionType type, Double balanceAfter, String counterparty) {
+        this.timestamp = timestamp;
+        this.description = description;
+        this.remark = remark;
+        this.amount = amount;
+        this.type = type;
+        this.balanceAfter = balanceAfter;
+        this.counterparty = counterparty;
+    }
+
+    // An entry as addTransaction records it; a null remark is left out of the line
+    public static TransactionEntry of(LocalDateTime timestamp, String description, String remark) {
+        Double balanceAfter = null;
+        int balanceAt = description.indexOf(NEW_BALANCE);
+        if (balanceAt >= 0) {
+            balanceAfter = number(description.substring(balanceAt + NEW_BALANCE.length()));
+        }
+        return new TransactionEntry(timestamp, description, remark, firstAmount(description),
+                TransactionType.classify(description), balanceAfter, counterpartyOf(description));
+    }
+
+    public static TransactionEntry parse(String line) {
+        if (line.length() > 21 && line.charAt(0) == '[' && line.charAt(20) == ']' && line.charAt(21) == ' ') {
+            String stamp = line.substring(1, 20);
+            try {
+                LocalDateTime timestamp = LocalDateTime.parse(stamp, DateFormats.TIMESTAMP);
+                // Only lines that format back to the same text, so toLine() round-trips
+                if (DateFormats.TIMESTAMP.format(timestamp).equals(stamp)) {
+                    String text = line.substring(22);
+                    String remark = null;
+                    int remarkAt = text.lastIndexOf(REMARK);
+                    if (remarkAt >= 0) {
+                        remark = text.substring(remarkAt + REMARK.length());
+                        text = text.substring(0, remarkAt);
+                    }
+                    return of(timestamp, text, remark);
+                }
+            } catch (DateTimeParseException e) {
+                // Kept whole below
+            }
+        }
+        // No recognisable timestamp - the whole line is the description
+        return of(null, line, null);
+    }
+
+    public String toLine() {
+        String line = timestamp != null ? "[" + DateFormats.timestamp(timestamp) + "] " + description : description;
+        return remark != null ? line + REMARK + remark : line;
+    }
+
+    private static String counterpartyOf(String description) {
+        for (String marker : COUNTERPARTY_MARKERS) {
+            int at = description.indexOf(marker);
+            if (at >= 0) {
+                String rest = description.substring(at + marker.length()).trim();
+                int end = rest.indexOf(' ');
+                return end < 0 ? rest : rest.substring(0, end);
+            }
+        }
+        return null;
+    }
+
+    private static Double firstAmount(String text) {
+        int at = text.indexOf('₹');
+        while (at >= 0) {
+            Double value = number(text.substring(at + 1));
+            if (value != null) {
+                return value;
+            }
+            at = text.indexOf('₹', at + 1);
+        }
+        return null;
+    }
+
+    // Leading number of the text, ignoring thousands separators
+    private static Double number(String text) {
+        String numStr = text.trim().split("[\\s|]")[0].replace(",", "");
+        try {
+            return Double.parseDouble(numStr);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public Direction getDirection() {
+        return type.getDirection();
+    }
+
+    public Double getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public String getCounterparty() {
+        return counterparty;
+    }
+}
@@ -0,0 +1,304 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * TransactionJournal - Append-only write-ahead log of account mutations.
+ *
+ * Each record carries the post-transaction state of one account together with
+ * the history lines written since that account was last persisted. Records are
+ * framed as [length][crc32][payload] so a torn write at the tail is detected
+ * and ignored on replay. Every record is stamped with a sequence number and
+ * the snapshot remembers the last sequence it covers, so records already folded
+ * into the snapshot are skipped on replay.
+ */
+public class TransactionJournal {
+    private static final byte RECORD_ACCOUNT = 1;
+
+    private final File file;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private long size;
+    private int recordCount;
+    private long lastSequence;
+
+    public TransactionJournal(String path) {
+        this.file = new File(path);
+        this.size = file.length();
+        this.recordCount = 0;
+        this.lastSequence = 0;
+    }
+
+    // Append the current state of an account; history lines from historyBase onward are included
+    public synchronized void appendAccount(BankAccount account, int historyBase) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream rec = new DataOutputStream(buffer);
+
+        long sequence = lastSequence + 1;
+        rec.writeByte(RECORD_ACCOUNT);
+        rec.writeLong(sequence);
+        writeString(rec, account.getAccountNumber());
+        rec.writeDouble(account.getBalance());
+        rec.writeDouble(account.getCumulativeFees());
+        rec.writeDouble(account.getCumulativeInterest());
+        rec.writeBoolean(account.isActive());
+        rec.writeBoolean(account.isFrozen());
+
+        int base = Math.min(historyBase, account.getTransactionCount());
+        List<String> lines = account.getTransactionLines(base);
+        rec.writeInt(base);
+        rec.writeInt(lines.size());
+        for (String line : lines) {
+            writeString(rec, line);
+        }
+
+        // Vendor payment statistics change alongside vendor payments
+        List<Vendor> vendors = account.getVendors();
+        rec.writeInt(vendors.size());
+        for (Vendor vendor : vendors) {
+            writeString(rec, vendor.getVendorId());
+            rec.writeDouble(vendor.getTotalPaid());
+            rec.writeInt(vendor.getTransactionCount());
+        }
+        rec.flush();
+
+        byte[] payload = buffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        // Handed to the OS here; fsync is batched by the snapshot committer
+        DataOutputStream stream = open();
+        stream.writeInt(payload.length);
+        stream.writeInt((int) crc.getValue());
+        stream.write(payload);
+        stream.flush();
+
+        size += 8 + payload.length;
+        recordCount++;
+        lastSequence = sequence;
+    }
+
+    // Re-apply every intact record newer than the snapshot; returns the number of records applied.
+    // A torn tail is cut off, so records appended afterwards are not hidden behind it
+    public synchronized int replay(Bank bank, long snapshotSequence) {
+        lastSequence = Math.max(lastSequence, snapshotSequence);
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+
+        long fileLength = file.length();
+        long good = 0; // End of the last intact record
+        int intact = 0;
+        int applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int expectedCrc = in.readInt();
+                if (length <= 0 || length > fileLength - good - 8) {
+                    break; // Garbage length - torn tail
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break; // Partially written record
+                }
+
+                good += 8 + length;
+                intact++;
+                try {
+                    if (applyRecord(bank, snapshotSequence, new DataInputStream(new ByteArrayInputStream(payload)))) {
+                        applied++;
+                    }
+                } catch (IOException e) {
+                    // Intact but unreadable - skip it, the records after it still apply
+                    System.err.println("Journal record skipped: " + e.getMessage());
+                }
+            }
+        } catch (EOFException e) {
+            // Record header written without its payload - ignore the tail
+        } catch (IOException e) {
+            // The file could not be read to the end; leave it as it is
+            System.err.println("Journal replay error: " + e.getMessage());
+            good = fileLength;
+        }
+
+        recordCount = intact;
+        size = good;
+        if (good < fileLength) {
+            close();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(good);
+                raf.getFD().sync();
+            } catch (IOException e) {
+                System.err.println("Journal truncate error: " + e.getMessage());
+                size = fileLength;
+            }
+        }
+        return applied;
+    }
+
+    private boolean applyRecord(Bank bank, long snapshotSequence, DataInputStream rec) throws IOException {
+        if (rec.readByte() != RECORD_ACCOUNT) {
+            return false;
+        }
+        long sequence = rec.readLong();
+        lastSequence = Math.max(lastSequence, sequence);
+        if (sequence <= snapshotSequence) {
+            return false; // Already part of the snapshot
+        }
+
+        String accountNumber = readString(rec);
+        double balance = rec.readDouble();
+        double fees = rec.readDouble();
+        double interest = rec.readDouble();
+        boolean active = rec.readBoolean();
+        boolean frozen = rec.readBoolean();
+
+        BankAccount account = bank.getAccount(accountNumber);
+        if (account == null && bank.getTreasuryAccount() != null
+                && bank.getTreasuryAccount().getAccountNumber().equals(accountNumber)) {
+            account = bank.getTreasuryAccount();
+        }
+        if (account == null) {
+            return false; // Account unknown to the snapshot - nothing to apply to
+        }
+
+        account.restoreJournalState(balance, fees, interest, active, frozen);
+
+        int base = rec.readInt();
+        int count = rec.readInt();
+        for (int i = 0; i < count; i++) {
+            String entry = readString(rec);
+            // Skip lines the snapshot already contains
+            if (base + i >= account.getTransactionCount()) {
+                account.addRestoredTransaction(entry);
+            }
+        }
+
+        int vendorCount = rec.readInt();
+        for (int i = 0; i < vendorCount; i++) {
+            String vendorId = readString(rec);
+            double totalPaid = rec.readDouble();
+            int transactions = rec.readInt();
+            Vendor vendor = account.findVendor(vendorId);
+            if (vendor != null) {
+                vendor.restorePaymentStats(totalPaid, transactions);
+            }
+        }
+        return true;
+    }
+
+    // Discard all records - called once their effects are captured in a snapshot.
+    // Sequence numbering carries on so later records still sort after the snapshot.
+    public synchronized void reset() throws IOException {
+        close();
+        new FileOutputStream(file, false).close();
+        size = 0;
+        recordCount = 0;
+    }
+
+    // Drop every record up to and including `sequence` once a snapshot covering them is durable.
+    // Records are found by sequence, not by a byte offset remembered earlier, so a reset or a
+    // truncation in between cannot make the cut land inside a record
+    public synchronized void discardThrough(long sequence) throws IOException {
+        close();
+        if (size == 0) {
+            return;
+        }
+        long offset = 0;
+        int records = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            while (offset + 8 + 9 <= size) {
+                raf.seek(offset);
+                int length = raf.readInt();
+                raf.readInt(); // crc
+                if (length < 9 || length > size - offset - 8) {
+                    break;
+                }
+                raf.readByte(); // record type
+                if (raf.readLong() > sequence) {
+                    break;
+                }
+                offset += 8 + length;
+                records++;
+            }
+        }
+        if (offset == 0) {
+            return;
+        }
+        if (offset >= size) {
+            reset();
+            return;
+        }
+        // Records appended after the snapshot was captured must survive
+        byte[] tail = new byte[(int) (size - offset)];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(offset);
+            raf.readFully(tail);
+        }
+        SnapshotWriter.writeAtomically(file, tail);
+        size = tail.length;
+        recordCount = Math.max(0, recordCount - records);
+    }
+
+    // fsync everything appended so far
+    public synchronized void sync() throws IOException {
+        if (out != null) {
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    public synchronized void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+            }
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    private DataOutputStream open() throws IOException {
+        if (out == null) {
+            fileOut = new FileOutputStream(file, true);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        }
+        return out;
+    }
+
+    // Length-prefixed UTF-8 (writeUTF caps out at 64KB)
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
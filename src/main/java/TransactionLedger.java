@@ -0,0 +1,554 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TransactionLedger - An account's transaction history in typed columns.
+ *
+ * Each entry is a timestamp (local wall-clock seconds), its TransactionType, the
+ * amount and balance-after figures, subject and remark ids and its
+ * description, all held in primitive arrays - descriptions as UTF-8 in one
+ * shared byte array. Statements read the numeric columns directly; the text
+ * line of an entry is only built when something displays or exports it.
+ *
+ * Deposits, withdrawals, transfers and fee/GST lines are stored by template:
+ * only the figures are recorded and the description is rendered on demand,
+ * so logging them allocates nothing. Restored lines that match a template
+ * exactly are stored the same way; anything else is kept as text.
+ *
+ * Columns are kept in fixed-size chunks, so a long history grows by adding a
+ * chunk rather than copying everything; only the first chunk starts small.
+ *
+ * Entries are normally appended in time order, which the ledger tracks; time
+ * lookups (indexAtOrAfter) are then a binary search over the time column.
+ * Entries without a timestamp sort with the entry before them.
+ *
+ * Not thread-safe; BankAccount guards its ledger with the account lock.
+ */
+public class TransactionLedger {
+    // Entry whose line had no timestamp; its description is the whole line
+    public static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NONE = -1;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final Template[] TEMPLATES = Template.values();
+    private static final String NEW_BALANCE = " | New Balance: ₹";
+
+    /**
+     * Fixed description layouts: prefix, subject, the text before the amount, the
+     * amount, then the new balance. The subject is the counterparty of a
+     * transfer, the label of a fee or the number of employees a payroll paid;
+     * a fee's type follows from its label. New constants go at the end.
+     */
+    public enum Template {
+        TEXT(null, false, null, false, null),
+        DEPOSIT("Deposited: ₹", false, "", false, TransactionType.DEPOSIT),
+        WITHDRAWAL("Withdrawal: ₹", false, "", false, TransactionType.WITHDRAWAL),
+        TRANSFER_OUT("Wire transfer sent to ", true, " | Amount: ₹", false, TransactionType.TRANSFER_OUT),
+        TRANSFER_IN("Wire transfer received from ", true, " | Amount: ₹", false, TransactionType.TRANSFER_IN),
+        FEE("", true, " | Base: ₹", true, null),
+        GST("GST Charge on ", true, " | GST: ₹", true, TransactionType.GST),
+        PAYROLL("Payroll paid to ", true, " employees | Amount: ₹", false, TransactionType.PAYROLL);
+
+        private final String prefix;
+        private final boolean hasSubject;
+        private final String beforeAmount;
+        private final boolean twoDecimals;
+        private final TransactionType type;
+
+        Template(String prefix, boolean hasSubject, String beforeAmount, boolean twoDecimals,
+                TransactionType type) {
+            this.prefix = prefix;
+            this.hasSubject = hasSubject;
+            this.beforeAmount = beforeAmount;
+            this.twoDecimals = twoDecimals;
+            this.type = type;
+        }
+
+        TransactionType typeOf(String subject) {
+            return type != null ? type : TransactionType.ofFee(subject);
+        }
+
+        // Same text as the string concatenation / String.format calls it replaces
+        String render(double amount, double balance, String subject) {
+            StringBuilder text = new StringBuilder(64).append(prefix);
+            if (hasSubject) {
+                text.append(subject);
+            }
+            text.append(beforeAmount);
+            if (twoDecimals) {
+                text.append(String.format("%.2f", amount));
+            } else {
+                text.append(amount);
+            }
+            return text.append(NEW_BALANCE).append(balance).toString();
+        }
+
+        // Figures of a description in this layout, or null unless it renders back identically
+        Object[] match(String description) {
+            if (!description.startsWith(prefix)) {
+                return null;
+            }
+            int at = prefix.length();
+            String subject = null;
+            if (hasSubject) {
+                int end = description.indexOf(beforeAmount, at);
+                if (end < 0) {
+                    return null;
+                }
+                subject = description.substring(at, end);
+                at = end;
+            }
+            if (!description.startsWith(beforeAmount, at)) {
+                return null;
+            }
+            at += beforeAmount.length();
+            int balanceAt = description.indexOf(NEW_BALANCE, at);
+            if (balanceAt < 0) {
+                return null;
+            }
+            try {
+                double amount = Double.parseDouble(description.substring(at, balanceAt));
+                double balance = Double.parseDouble(description.substring(balanceAt + NEW_BALANCE.length()));
+                if (!render(amount, balance, subject).equals(description)) {
+                    return null;
+                }
+                return new Object[] { amount, balance, subject };
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Columns of up to CHUNK_SIZE consecutive entries
+    private static final class Chunk {
+        long[] times;
+        byte[] templates;
+        byte[] types;
+        double[] amounts; // NaN: entry has no amount
+        double[] balances; // NaN: entry has no balance figure
+        int[] subjects; // Counterparty (text entries and transfers) or fee label
+        String[] remarks; // Free text, held inline rather than interned
+        int[] textEnds;
+
+        Chunk(int capacity) {
+            times = new long[capacity];
+            templates = new byte[capacity];
+            types = new byte[capacity];
+            amounts = new double[capacity];
+            balances = new double[capacity];
+            subjects = new int[capacity];
+            remarks = new String[capacity];
+            textEnds = new int[capacity];
+        }
+
+        void grow(int capacity) {
+            times = Arrays.copyOf(times, capacity);
+            templates = Arrays.copyOf(templates, capacity);
+            types = Arrays.copyOf(types, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            subjects = Arrays.copyOf(subjects, capacity);
+            remarks = Arrays.copyOf(remarks, capacity);
+            textEnds = Arrays.copyOf(textEnds, capacity);
+        }
+    }
+
+    private Chunk[] chunks = new Chunk[1];
+    private final int firstChunkCapacity;
+    private byte[] text;
+    private int size;
+    private int textSize;
+    private long latestTime = NO_TIME;
+    private boolean inTimeOrder = true; // Every timestamp is >= the one before it
+
+    // Counterparty account numbers and fee labels repeat across accounts - each distinct
+    // value is held once. Remarks are free text and are not interned, so the table stays
+    // bounded by the accounts and fee labels the bank knows.
+    private static final Map<String, Integer> valueIds = new ConcurrentHashMap<>();
+    private static volatile String[] values = new String[256];
+    private static int valueCount;
+
+    public TransactionLedger() {
+        this(8);
+    }
+
+    public TransactionLedger(int capacity) {
+        firstChunkCapacity = Math.max(1, Math.min(capacity, CHUNK_SIZE));
+        text = new byte[firstChunkCapacity * 8];
+    }
+
+    public static TransactionLedger fromLines(List<String> lines) {
+        TransactionLedger ledger = new TransactionLedger(lines.size());
+        for (String line : lines) {
+            ledger.appendLine(line);
+        }
+        return ledger;
+    }
+
+    public void append(LocalDateTime timestamp, String description, String remark) {
+        append(TransactionEntry.of(timestamp, description, remark));
+    }
+
+    // A history line as stored by older snapshots, the journal and MySQL
+    public void appendLine(String line) {
+        append(TransactionEntry.parse(line));
+    }
+
+    // Hot path - primitives only; time is local epoch seconds (BankClock)
+    public void append(long time, Template template, double amount, double balance, String subject,
+            String remark) {
+        Chunk chunk = chunkForAppend();
+        int at = size & CHUNK_MASK;
+        chunk.times[at] = time;
+        noteTime(time);
+        chunk.templates[at] = (byte) template.ordinal();
+        chunk.types[at] = (byte) template.typeOf(subject).ordinal();
+        chunk.amounts[at] = amount;
+        chunk.balances[at] = balance;
+        chunk.subjects[at] = idOf(subject);
+        chunk.remarks[at] = remark;
+        chunk.textEnds[at] = textSize;
+        size++;
+    }
+
+    public void append(TransactionEntry entry) {
+        long time = entry.getTimestamp() != null ? entry.getTimestamp().toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+        for (int t = 1; t < TEMPLATES.length; t++) {
+            Object[] figures = TEMPLATES[t].match(entry.getDescription());
+            if (figures != null) {
+                append(time, TEMPLATES[t], (Double) figures[0], (Double) figures[1], (String) figures[2],
+                        entry.getRemark());
+                return;
+            }
+        }
+        Chunk chunk = chunkForAppend();
+        int at = size & CHUNK_MASK;
+        chunk.times[at] = time;
+        noteTime(time);
+        chunk.templates[at] = (byte) Template.TEXT.ordinal();
+        chunk.types[at] = (byte) entry.getType().ordinal();
+        chunk.amounts[at] = entry.getAmount() != null ? entry.getAmount() : Double.NaN;
+        chunk.balances[at] = entry.getBalanceAfter() != null ? entry.getBalanceAfter() : Double.NaN;
+        chunk.subjects[at] = idOf(entry.getCounterparty());
+        chunk.remarks[at] = entry.getRemark();
+
+        byte[] bytes = entry.getDescription().getBytes(StandardCharsets.UTF_8);
+        appendText(bytes, 0, bytes.length);
+        chunk.textEnds[at] = textSize;
+        size++;
+    }
+
+    // Entries [from, to) of another ledger, column by column without rendering them
+    public void appendRange(TransactionLedger source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Chunk src = source.chunk(i);
+            int srcAt = i & CHUNK_MASK;
+            Chunk chunk = chunkForAppend();
+            int at = size & CHUNK_MASK;
+            chunk.times[at] = src.times[srcAt];
+            noteTime(src.times[srcAt]);
+            chunk.templates[at] = src.templates[srcAt];
+            chunk.types[at] = src.types[srcAt];
+            chunk.amounts[at] = src.amounts[srcAt];
+            chunk.balances[at] = src.balances[srcAt];
+            chunk.subjects[at] = src.subjects[srcAt];
+            chunk.remarks[at] = src.remarks[srcAt];
+            int start = i == 0 ? 0 : source.textEnd(i - 1);
+            appendText(source.text, start, src.textEnds[srcAt] - start);
+            chunk.textEnds[at] = textSize;
+            size++;
+        }
+    }
+
+    private void appendText(byte[] bytes, int offset, int length) {
+        if (textSize + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(textSize + length, text.length + (text.length >> 1)));
+        }
+        System.arraycopy(bytes, offset, text, textSize, length);
+        textSize += length;
+    }
+
+    private void noteTime(long time) {
+        if (time != NO_TIME) {
+            if (latestTime != NO_TIME && time < latestTime) {
+                inTimeOrder = false;
+            }
+            latestTime = Math.max(latestTime, time);
+        }
+    }
+
+    // Index of the first entry at or after the time (local epoch seconds), or size() if none
+    public int indexAtOrAfter(long time) {
+        if (!inTimeOrder) {
+            for (int i = 0; i < size; i++) {
+                if (sortTime(i) >= time) {
+                    return i;
+                }
+            }
+            return size;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortTime(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Time the entry sorts by: its own, or that of the nearest earlier entry that has one
+    private long sortTime(int index) {
+        for (int i = index; i >= 0; i--) {
+            long time = chunks[i >>> CHUNK_BITS].times[i & CHUNK_MASK];
+            if (time != NO_TIME) {
+                return time;
+            }
+        }
+        return NO_TIME;
+    }
+
+    // The chunk the next entry goes into, adding or (first chunk only) growing one if full
+    private Chunk chunkForAppend() {
+        int index = size >>> CHUNK_BITS;
+        if (index == chunks.length) {
+            chunks = Arrays.copyOf(chunks, index * 2);
+        }
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            chunk = new Chunk(index == 0 ? firstChunkCapacity : CHUNK_SIZE);
+            chunks[index] = chunk;
+        } else if ((size & CHUNK_MASK) == chunk.times.length) {
+            chunk.grow(Math.min(CHUNK_SIZE, chunk.times.length * 2));
+        }
+        return chunk;
+    }
+
+    private Chunk chunk(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Entry " + index + " of " + size);
+        }
+        return chunks[index >>> CHUNK_BITS];
+    }
+
+    private int textEnd(int index) {
+        return chunks[index >>> CHUNK_BITS].textEnds[index & CHUNK_MASK];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Local wall-clock time as epoch seconds, or NO_TIME
+    public long timeAt(int index) {
+        return chunk(index).times[index & CHUNK_MASK];
+    }
+
+    public LocalDateTime timestampAt(int index) {
+        long time = timeAt(index);
+        return time == NO_TIME ? null : LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC);
+    }
+
+    // Classified when the entry was appended
+    public TransactionType typeAt(int index) {
+        return TYPES[chunk(index).types[index & CHUNK_MASK]];
+    }
+
+    public TransactionEntry.Direction directionAt(int index) {
+        return typeAt(index).getDirection();
+    }
+
+    // 0 for entries without an amount
+    public double amountAt(int index) {
+        double amount = chunk(index).amounts[index & CHUNK_MASK];
+        return Double.isNaN(amount) ? 0.0 : amount;
+    }
+
+    public boolean hasBalanceAt(int index) {
+        return !Double.isNaN(balanceAfterAt(index));
+    }
+
+    // NaN for entries without a balance figure
+    public double balanceAfterAt(int index) {
+        return chunk(index).balances[index & CHUNK_MASK];
+    }
+
+    public Template templateAt(int index) {
+        return TEMPLATES[chunk(index).templates[index & CHUNK_MASK]];
+    }
+
+    public String counterpartyAt(int index) {
+        Template template = templateAt(index);
+        return template == Template.FEE || template == Template.GST ? null
+                : valueOf(chunk(index).subjects[index & CHUNK_MASK]);
+    }
+
+    public String remarkAt(int index) {
+        return chunk(index).remarks[index & CHUNK_MASK];
+    }
+
+    public String descriptionAt(int index) {
+        Chunk chunk = chunk(index);
+        int at = index & CHUNK_MASK;
+        Template template = TEMPLATES[chunk.templates[at]];
+        if (template != Template.TEXT) {
+            return template.render(chunk.amounts[at], chunk.balances[at], valueOf(chunk.subjects[at]));
+        }
+        int start = index == 0 ? 0 : textEnd(index - 1);
+        return new String(text, start, chunk.textEnds[at] - start, StandardCharsets.UTF_8);
+    }
+
+    public TransactionEntry entryAt(int index) {
+        Chunk chunk = chunk(index);
+        double amount = chunk.amounts[index & CHUNK_MASK];
+        double balance = chunk.balances[index & CHUNK_MASK];
+        return new TransactionEntry(timestampAt(index), descriptionAt(index), remarkAt(index),
+                Double.isNaN(amount) ? null : amount, typeAt(index),
+                Double.isNaN(balance) ? null : balance, counterpartyAt(index));
+    }
+
+    // The entry as a history line, exactly as addTransaction used to store it
+    public String lineAt(int index) {
+        long time = timeAt(index);
+        String line = time == NO_TIME ? descriptionAt(index)
+                : "[" + DateFormats.timestamp(time) + "] " + descriptionAt(index);
+        String remark = remarkAt(index);
+        return remark != null ? line + TransactionEntry.REMARK + remark : line;
+    }
+
+    public ArrayList<String> lines(int from, int to) {
+        ArrayList<String> lines = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            lines.add(lineAt(i));
+        }
+        return lines;
+    }
+
+    public ArrayList<TransactionEntry> entries(int from, int to) {
+        ArrayList<TransactionEntry> entries = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            entries.add(entryAt(i));
+        }
+        return entries;
+    }
+
+    // Snapshot block: entry count, then per entry the time as a delta from the previous
+    // one, the template with its figures and subject or the description, and
+    // the remark. Text entries' other columns, and every entry's type, are derived again
+    // on load.
+    void writeSnapshot(SnapshotCodec.Writer out) throws IOException {
+        out.writeVarInt(size);
+        out.writeRecord(block -> writeEntries(block, 0, size));
+    }
+
+    // Entries [from, to) in the snapshot encoding, read back by readSnapshot
+    void writeEntries(SnapshotCodec.Writer out, int from, int to) throws IOException {
+        long previous = 0;
+        for (int i = from; i < to; i++) {
+            Chunk chunk = chunk(i);
+            int at = i & CHUNK_MASK;
+            long time = chunk.times[at];
+            if (time == NO_TIME) {
+                out.writeVarLong(0);
+            } else {
+                out.writeVarLong(zigzag(time - previous) + 1);
+                previous = time;
+            }
+            out.writeVarInt(chunk.templates[at]);
+            if (chunk.templates[at] == Template.TEXT.ordinal()) {
+                int start = i == 0 ? 0 : textEnd(i - 1);
+                out.writeUtf8(text, start, chunk.textEnds[at] - start);
+            } else {
+                out.writeDouble(chunk.amounts[at]);
+                out.writeDouble(chunk.balances[at]);
+                out.writeString(valueOf(chunk.subjects[at]));
+            }
+            out.writeString(chunk.remarks[at]);
+        }
+    }
+
+    static TransactionLedger readSnapshot(SnapshotCodec.Reader in, int count) throws IOException {
+        TransactionLedger ledger = new TransactionLedger(count);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = in.readVarLong();
+            long time = NO_TIME;
+            if (delta != 0) {
+                previous += unzigzag(delta - 1);
+                time = previous;
+            }
+            int code = in.readVarInt();
+            if (code >= TEMPLATES.length) {
+                throw new IOException("Corrupt snapshot: unknown history template " + code);
+            }
+            Template template = TEMPLATES[code];
+            if (template == Template.TEXT) {
+                String description = in.readString();
+                String remark = in.readString();
+                ledger.append(TransactionEntry.of(
+                        time == NO_TIME ? null : LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC),
+                        description, remark));
+            } else {
+                double amount = in.readDouble();
+                double balance = in.readDouble();
+                String subject = in.readString();
+                ledger.append(time, template, amount, balance, subject, in.readString());
+            }
+        }
+        return ledger;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Lock-free for values seen before, so the hot path takes no lock and allocates nothing
+    private static int idOf(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer id = valueIds.get(value);
+        return id != null ? id : addValue(value);
+    }
+
+    private static synchronized int addValue(String value) {
+        Integer id = valueIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        String[] table = values;
+        if (valueCount == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[valueCount] = value;
+        values = table;
+        // Published after the table holds it, so any thread that sees the id can read the value
+        valueIds.put(value, valueCount);
+        return valueCount++;
+    }
+
+    private static String valueOf(int id) {
+        return id == NONE ? null : values[id];
+    }
+}
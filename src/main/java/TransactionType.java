@@ -0,0 +1,107 @@
+/**
+ * TransactionType - What a history entry records, decided once when it is written.
+ *
+ * Templated entries take their type from the template (fees from their
+ * label); text entries - including legacy lines restored from older data -
+ * are classified once by the keywords below. The type fixes the entry's
+ * statement label and which column its amount belongs in, so statements,
+ * the passbook and the totals branch on it instead of searching the text.
+ *
+ * Labelled constants are tried in declaration order against the description
+ * up to its first " | ", so the more specific ones come first ("GST Charge
+ * on Withdrawal fee" is GST, "Withdrawal fee" is not a withdrawal). The three
+ * OTHER types have no fixed label and are tried last, anywhere in the
+ * description. New constants go at the end.
+ */
+public enum TransactionType {
+    GST("GST Charge", TransactionEntry.Direction.DEBIT, "GST"),
+    DEPOSIT("Deposit", TransactionEntry.Direction.CREDIT, "Deposited:"),
+    WITHDRAWAL("Withdrawal", TransactionEntry.Direction.DEBIT, "Withdrawal:"),
+    TRANSFER_OUT("Transfer Out", TransactionEntry.Direction.DEBIT, "Wire transfer sent"),
+    TRANSFER_IN("Transfer In", TransactionEntry.Direction.CREDIT, "Wire transfer received"),
+    INTEREST("Interest Credit", TransactionEntry.Direction.CREDIT, "Interest credited"),
+    ACCOUNT_OPENING("Account Opening", TransactionEntry.Direction.CREDIT, "Account created"),
+    JOINING_FEE("Joining Fee", TransactionEntry.Direction.DEBIT, "Joining fee"),
+    WITHDRAWAL_FEE("Withdrawal Fee", TransactionEntry.Direction.DEBIT, "Withdrawal fee"),
+    TRANSFER_FEE("Transfer Fee", TransactionEntry.Direction.DEBIT, "Transfer fee"),
+    // The notice only explains the AMC fee entry that follows it
+    AMC_NOTICE("AMC Notice", TransactionEntry.Direction.INFO, "Maintenance Charge"),
+    // Treasury's note of an AMC it already received as a deposit
+    AMC_RECEIVED("AMC Received", TransactionEntry.Direction.INFO, "Received AMC"),
+    AMC_FEE("AMC Charge", TransactionEntry.Direction.DEBIT, "AMC"),
+    FD_CREATED("FD Created", TransactionEntry.Direction.DEBIT, "Fixed Deposit created"),
+    FD_CLOSED("FD Closed", TransactionEntry.Direction.CREDIT, "FD closed"),
+    RD_CREATED("RD Created", TransactionEntry.Direction.DEBIT, "Recurring Deposit created"),
+    RD_INSTALLMENT("RD Payment", TransactionEntry.Direction.DEBIT, "RD installment"),
+    RD_CLOSED("RD Closed", TransactionEntry.Direction.CREDIT, "RD closed"),
+    CHEQUE_REQUEST("Cheque Request", TransactionEntry.Direction.INFO, "Cheque book"),
+    OTHER_CREDIT(null, TransactionEntry.Direction.CREDIT, "received", "credited"),
+    OTHER_DEBIT(null, TransactionEntry.Direction.DEBIT, "sent", "charged", "Fee", "Withdrawal"),
+    OTHER(null, TransactionEntry.Direction.INFO),
+    // A transfer debit refunded because the credit could not be made (TransferEngine)
+    TRANSFER_REVERSAL("Transfer Reversal", TransactionEntry.Direction.CREDIT, "Reversal of transfer"),
+    // One corporate debit for a whole payroll batch (PayrollEngine)
+    PAYROLL("Payroll", TransactionEntry.Direction.DEBIT, "Payroll paid");
+
+    // Matching order: labelled types, then the OTHER ones
+    private static final TransactionType[] MATCH_ORDER = matchOrder();
+
+    private final String label;
+    private final TransactionEntry.Direction direction;
+    private final String[] keywords;
+
+    TransactionType(String label, TransactionEntry.Direction direction, String... keywords) {
+        this.label = label;
+        this.direction = direction;
+        this.keywords = keywords;
+    }
+
+    // Short statement label, or null for the OTHER types (see BankAccount.compressDescription)
+    public String getLabel() {
+        return label;
+    }
+
+    public TransactionEntry.Direction getDirection() {
+        return direction;
+    }
+
+    // Type of a free-text description; allocates nothing
+    public static TransactionType classify(String description) {
+        int head = description.indexOf(" | ");
+        if (head < 0) {
+            head = description.length();
+        }
+        for (TransactionType type : MATCH_ORDER) {
+            int limit = type.label != null ? head : description.length();
+            for (String keyword : type.keywords) {
+                int at = description.indexOf(keyword);
+                if (at >= 0 && at + keyword.length() <= limit) {
+                    return type;
+                }
+            }
+        }
+        return OTHER;
+    }
+
+    private static TransactionType[] matchOrder() {
+        TransactionType[] order = new TransactionType[values().length];
+        int n = 0;
+        for (TransactionType type : values()) {
+            if (type.label != null) {
+                order[n++] = type;
+            }
+        }
+        for (TransactionType type : values()) {
+            if (type.label == null) {
+                order[n++] = type;
+            }
+        }
+        return order;
+    }
+
+    // Type of a fee logged under the label; always a debit
+    public static TransactionType ofFee(String label) {
+        TransactionType type = label != null ? classify(label) : OTHER;
+        return type.direction == TransactionEntry.Direction.DEBIT ? type : OTHER_DEBIT;
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.function.Consumer;
+
+/**
+ * TransferEngine - Moves money between two accounts as one atomic step.
+ *
+ * Both accounts' locks (their monitors, which every BankAccount operation
+ * already synchronizes on) are taken in account-number order, so two
+ * transfers in opposite directions cannot deadlock and unrelated transfers
+ * never wait for each other - there is no bank-wide lock. While both are
+ * held nobody can see the debit without the credit. "TREASURY_001" sorts
+ * after every "ACC" number, the same order interest and AMC postings
+ * already nest the treasury lock in.
+ *
+ * The destination is checked before anything is debited; should the credit
+ * still fail, the debit and its fees are refunded before the locks are
+ * released.
+ */
+public final class TransferEngine {
+
+    private TransferEngine() {
+    }
+
+    public static boolean transfer(BankAccount from, BankAccount to, double amount, String remark) {
+        return transfer(from, to, amount, remark, BankAccount.CONSOLE_REFUSALS);
+    }
+
+    // Refusal reasons go to refusals instead of the console
+    public static boolean transfer(BankAccount from, BankAccount to, double amount, String remark,
+            Consumer<String> refusals) {
+        if (from == to || from.getAccountNumber().equals(to.getAccountNumber())) {
+            refusals.accept("Cannot transfer to the same account!");
+            return false;
+        }
+        BankAccount first = from.getAccountNumber().compareTo(to.getAccountNumber()) < 0 ? from : to;
+        BankAccount second = first == from ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                return transferLocked(from, to, amount, remark, refusals);
+            }
+        }
+    }
+
+    // Both locks held
+    private static boolean transferLocked(BankAccount from, BankAccount to, double amount, String remark,
+            Consumer<String> refusals) {
+        if (!to.canReceiveTransfer()) {
+            refusals.accept("Destination account cannot receive transfers.");
+            return false;
+        }
+        if (!from.transferOut(amount, to.getAccountNumber(), remark, refusals)) {
+            return false;
+        }
+        boolean credited = false;
+        try {
+            credited = to.transferIn(amount, from.getAccountNumber(), remark, refusals);
+        } finally {
+            if (!credited) {
+                from.reverseTransferOut(amount, to.getAccountNumber());
+                refusals.accept("Transfer reversed; the amount and fees were refunded.");
+            }
+        }
+        return credited;
+    }
+}
@@ -38,6 +38,12 @@ public class Vendor implements Serializable {
         this.transactionCount++;
     }
 
+    // Journal replay - restore payment totals recorded after a payment
+    public void restorePaymentStats(double totalPaid, int transactionCount) {
+        this.totalPaid = totalPaid;
+        this.transactionCount = transactionCount;
+    }
+
     // Getters
     public String getVendorId() {
         return vendorId;
@@ -90,38 +96,47 @@ public class Vendor implements Serializable {
     // Setters
     public void setVendorName(String vendorName) {
         this.vendorName = vendorName;
+        ChangeTracker.structureChanged();
     }
 
     public void setAccountNumber(String accountNumber) {
         this.accountNumber = accountNumber;
+        ChangeTracker.structureChanged();
     }
 
     public void setIfscCode(String ifscCode) {
         this.ifscCode = ifscCode;
+        ChangeTracker.structureChanged();
     }
 
     public void setBankName(String bankName) {
         this.bankName = bankName;
+        ChangeTracker.structureChanged();
     }
 
     public void setCategory(String category) {
         this.category = category;
+        ChangeTracker.structureChanged();
     }
 
     public void setContactPerson(String contactPerson) {
         this.contactPerson = contactPerson;
+        ChangeTracker.structureChanged();
     }
 
     public void setMobile(String mobile) {
         this.mobile = mobile;
+        ChangeTracker.structureChanged();
     }
 
     public void setEmail(String email) {
         this.email = email;
+        ChangeTracker.structureChanged();
     }
 
     public void setGstNumber(String gstNumber) {
         this.gstNumber = gstNumber;
+        ChangeTracker.structureChanged();
     }
 
     public void displayVendorInfo() {
@@ -161,4 +176,41 @@ public class Vendor implements Serializable {
 
         System.out.println("  " + BRIGHT_CYAN + "└──────────────────────────────────────────────────────────┘" + RESET);
     }
+
+    // Snapshot decoding - fields are filled in by readSnapshot
+    private Vendor() {
+    }
+
+    // Compact snapshot encoding (see SnapshotCodec)
+    void writeSnapshot(SnapshotCodec.Writer out) throws java.io.IOException {
+        out.writeString(vendorId);
+        out.writeString(vendorName);
+        out.writeString(accountNumber);
+        out.writeString(ifscCode);
+        out.writeString(bankName);
+        out.writeString(category);
+        out.writeString(contactPerson);
+        out.writeString(mobile);
+        out.writeString(email);
+        out.writeString(gstNumber);
+        out.writeDouble(totalPaid);
+        out.writeVarInt(transactionCount);
+    }
+
+    static Vendor readSnapshot(SnapshotCodec.Reader in) throws java.io.IOException {
+        Vendor vendor = new Vendor();
+        vendor.vendorId = in.readString();
+        vendor.vendorName = in.readString();
+        vendor.accountNumber = in.readString();
+        vendor.ifscCode = in.readString();
+        vendor.bankName = in.readString();
+        vendor.category = in.readString();
+        vendor.contactPerson = in.readString();
+        vendor.mobile = in.readString();
+        vendor.email = in.readString();
+        vendor.gstNumber = in.readString();
+        vendor.totalPaid = in.readDouble();
+        vendor.transactionCount = in.readVarInt();
+        return vendor;
+    }
 }
@@ -0,0 +1,78 @@
+import java.io.File;
+import java.time.LocalDate;
+
+/**
+ * PersistenceManagerTest - Deposit state after a crash and restart.
+ *
+ * Writes bank_data.ser and bank_data.journal in the working directory, so
+ * run it from an empty one: java -ea -cp <classes> PersistenceManagerTest
+ */
+public class PersistenceManagerTest {
+
+    public static void main(String[] args) throws Exception {
+        if (new File("bank_data.ser").exists() || new File("bank_data.journal").exists()) {
+            System.err.println("PersistenceManagerTest: run from an empty directory");
+            System.exit(2);
+        }
+        closedDepositsStayClosedAfterReplay();
+        vendorSwapSurvivesReplay();
+        System.out.println("PersistenceManagerTest: OK");
+    }
+
+    // Closing an FD or paying an RD installment must not come back as a credit on a live deposit
+    static void closedDepositsStayClosedAfterReplay() throws Exception {
+        Bank bank = PersistenceManager.loadBank();
+        String accountNumber = bank.createAccount("Test Holder", "9000000001", "t@example.com",
+                LocalDate.of(1980, 1, 1), "1 Test Road", "Pune", "MH", "411001", "ABCDE1234F", "123412341234",
+                100000, AccountType.PRIORITY);
+        BankAccount account = bank.getAccount(accountNumber);
+        String fdNumber = account.createFixedDeposit(bank.nextFixedDepositNumber(), 20000, 12);
+        String rdNumber = account.createRecurringDeposit(bank.nextRecurringDepositNumber(), 1000, 12);
+        PersistenceManager.saveBankVerbose(bank);
+
+        check(account.closeFD(fdNumber, true), "FD closed");
+        check(account.payRDInstallment(rdNumber), "RD installment paid");
+        double balance = account.getBalance();
+        PersistenceManager.recordTransaction(bank, account);
+        Thread.sleep(1000); // Past the commit window; then the process "crashes" without shutdown
+
+        Bank restarted = PersistenceManager.loadBank();
+        BankAccount reloaded = restarted.getAccount(accountNumber);
+        check(reloaded.getBalance() == balance, "balance after replay");
+        check(!reloaded.getFixedDeposits().get(0).isActive(), "FD still closed after replay");
+        check(!reloaded.closeFD(fdNumber, true), "FD cannot be closed twice");
+        check(reloaded.getRecurringDeposits().get(0).getInstallmentsPaid()
+                == account.getRecurringDeposits().get(0).getInstallmentsPaid(), "RD installments after replay");
+    }
+
+    // One vendor removed and another added between flushes leaves the list size unchanged
+    static void vendorSwapSurvivesReplay() throws Exception {
+        Bank bank = PersistenceManager.loadBank();
+        String accountNumber = bank.createAccount("Vendor Holder", "9000000002", "v@example.com",
+                LocalDate.of(1980, 1, 1), "2 Test Road", "Pune", "MH", "411001", "ABCDE1234G", "123412341235",
+                600000, AccountType.CORPORATE);
+        BankAccount account = bank.getAccount(accountNumber);
+        account.addVendor(vendor("VEN1"));
+        PersistenceManager.saveBankVerbose(bank);
+
+        check(account.removeVendor("VEN1"), "vendor removed");
+        account.addVendor(vendor("VEN2"));
+        PersistenceManager.recordTransaction(bank, account);
+        Thread.sleep(1000);
+
+        BankAccount reloaded = PersistenceManager.loadBank().getAccount(accountNumber);
+        check(reloaded.findVendor("VEN1") == null, "removed vendor stays removed");
+        check(reloaded.findVendor("VEN2") != null, "added vendor kept");
+    }
+
+    private static Vendor vendor(String id) {
+        return new Vendor(id, "Supplier " + id, "ACC9999", "BOFI0001", "Bank of Future", "Supplies", "Contact",
+                "9000000009", "s@example.com", "27ABCDE1234F1Z5");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * TransactionJournalTest - Replay after a torn write.
+ *
+ * Run with: java -ea -cp <classes> TransactionJournalTest
+ */
+public class TransactionJournalTest {
+
+    public static void main(String[] args) throws IOException {
+        tornTailIsCutBeforeLaterAppends();
+        discardAfterResetKeepsNewerRecords();
+        System.out.println("TransactionJournalTest: OK");
+    }
+
+    // A record appended after a torn tail must survive the next replay
+    static void tornTailIsCutBeforeLaterAppends() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        file.deleteOnExit();
+        Bank bank = new Bank();
+        BankAccount account = bank.getTreasuryAccount();
+
+        TransactionJournal journal = new TransactionJournal(file.getPath());
+        account.restoreJournalState(100.0, 0.0, 0.0, true, false);
+        journal.appendAccount(account, account.getTransactionCount());
+        journal.close();
+        long intactLength = file.length();
+
+        // A crash mid-write: a header promising more bytes than were written
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] { 0, 0, 0, 40, 1, 2, 3, 4, 5, 6 });
+        }
+
+        // Restart: replay cuts the tail, then a new record is appended
+        account.restoreJournalState(0.0, 0.0, 0.0, true, false);
+        journal = new TransactionJournal(file.getPath());
+        check(journal.replay(bank, 0) == 1, "intact record replayed");
+        check(account.getBalance() == 100.0, "balance restored from the intact record");
+        check(file.length() == intactLength, "torn tail truncated");
+        check(journal.size() == intactLength, "size matches the truncated file");
+
+        account.restoreJournalState(250.0, 0.0, 0.0, true, false);
+        journal.appendAccount(account, account.getTransactionCount());
+        journal.close();
+
+        // Next restart sees both records
+        account.restoreJournalState(0.0, 0.0, 0.0, true, false);
+        journal = new TransactionJournal(file.getPath());
+        check(journal.replay(bank, 0) == 2, "record appended after the tear replayed");
+        check(account.getBalance() == 250.0, "latest balance restored");
+        journal.close();
+    }
+
+    // A fold captured before a reset must not cut into records written after it
+    static void discardAfterResetKeepsNewerRecords() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        file.deleteOnExit();
+        Bank bank = new Bank();
+        BankAccount account = bank.getTreasuryAccount();
+
+        TransactionJournal journal = new TransactionJournal(file.getPath());
+        account.restoreJournalState(100.0, 0.0, 0.0, true, false);
+        journal.appendAccount(account, account.getTransactionCount());
+        journal.appendAccount(account, account.getTransactionCount());
+        long captured = journal.getLastSequence();
+
+        journal.reset();
+        account.restoreJournalState(300.0, 0.0, 0.0, true, false);
+        journal.appendAccount(account, account.getTransactionCount());
+        journal.discardThrough(captured);
+        check(journal.getRecordCount() == 1, "newer record kept");
+        journal.close();
+
+        account.restoreJournalState(0.0, 0.0, 0.0, true, false);
+        journal = new TransactionJournal(file.getPath());
+        check(journal.replay(bank, 0) == 1, "newer record replayed");
+        check(account.getBalance() == 300.0, "balance from the newer record");
+        journal.close();
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+}